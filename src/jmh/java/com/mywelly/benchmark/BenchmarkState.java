@@ -0,0 +1,88 @@
+package com.mywelly.benchmark;
+
+import com.mywelly.MyWellyApplication;
+import com.mywelly.config.SyntheticDataGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Boots the application once per fork against an in-memory H2 database filled by SyntheticDataGenerator
+@State(Scope.Benchmark)
+public class BenchmarkState {
+
+    @Param("10000")
+    public int doctors;
+
+    @Param("20000")
+    public int patients;
+
+    @Param("100000")
+    public int appointments;
+
+    @Param("100000")
+    public int reviews;
+
+    @Param("42")
+    public long seed;
+
+    ConfigurableApplicationContext context;
+    long firstPatientId;
+    long firstDoctorId;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(MyWellyApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(arguments(patients, doctors, appointments, reviews, seed));
+
+        SyntheticDataGenerator generator = bean(SyntheticDataGenerator.class);
+        firstPatientId = generator.getFirstPatientId();
+        firstDoctorId = generator.getFirstDoctorId();
+    }
+
+    // Passed as arguments so they override application.properties
+    static String[] arguments(int patients, int doctors, int appointments, int reviews, long seed,
+                              String... extra) {
+        List<String> arguments = new ArrayList<>(List.of("--spring.profiles.active=generate",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--logging.level.com.mywelly=WARN",
+                "--logging.level.org.hibernate=WARN",
+                "--spring.autoconfigure.exclude=" +
+                        "org.springframework.boot.devtools.autoconfigure.DevToolsDataSourceAutoConfiguration",
+                "--mywelly.mail.outbox.enabled=false",
+                "--mywelly.appointments.completion-delay-ms=86400000",
+                "--mywelly.generator.patients=" + patients,
+                "--mywelly.generator.doctors=" + doctors,
+                "--mywelly.generator.laboratories=" + Math.max(doctors / 20, 1),
+                "--mywelly.generator.appointments=" + appointments,
+                "--mywelly.generator.reviews=" + reviews,
+                "--mywelly.generator.seed=" + seed));
+        arguments.addAll(List.of(extra));
+        return arguments.toArray(new String[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    long randomPatientId() {
+        return firstPatientId + ThreadLocalRandom.current().nextInt(patients);
+    }
+
+    long randomDoctorId() {
+        return firstDoctorId + ThreadLocalRandom.current().nextInt(doctors);
+    }
+}
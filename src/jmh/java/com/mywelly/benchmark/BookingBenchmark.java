@@ -0,0 +1,71 @@
+package com.mywelly.benchmark;
+
+import com.mywelly.model.Appointment;
+import com.mywelly.model.Doctor;
+import com.mywelly.model.Review;
+import com.mywelly.repository.DoctorRepository;
+import com.mywelly.service.AppointmentService;
+import com.mywelly.service.PatientService;
+import com.mywelly.service.ReviewService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Write paths: booking a free slot and posting a doctor review
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class BookingBenchmark {
+
+    private static final int BOOKABLE_DOCTORS = 1000;
+
+    private BenchmarkState state;
+    private AppointmentService appointmentService;
+    private ReviewService reviewService;
+    private PatientService patientService;
+    private List<Doctor> doctors;
+    private List<List<String>> slots;
+    private LocalDate firstDay;
+
+    // Walks doctor, then slot, then day, so every booking targets a slot nobody holds yet
+    private final AtomicLong bookings = new AtomicLong();
+
+    @Setup
+    public void setUp(BenchmarkState state) {
+        this.state = state;
+        appointmentService = state.bean(AppointmentService.class);
+        reviewService = state.bean(ReviewService.class);
+        patientService = state.bean(PatientService.class);
+        doctors = state.bean(DoctorRepository.class)
+                .findAll(PageRequest.of(0, Math.min(BOOKABLE_DOCTORS, state.doctors))).getContent();
+        slots = doctors.stream().map(appointmentService::getWorkingSlots).toList();
+        // Past the seeded window
+        firstDay = LocalDate.now().plusYears(1);
+    }
+
+    @Benchmark
+    public Appointment createAppointment() {
+        long n = bookings.getAndIncrement();
+        int doctor = (int) (n % doctors.size());
+        List<String> times = slots.get(doctor);
+        long rest = n / doctors.size();
+        return appointmentService.createAppointment(
+                patientService.getPatientReference(state.randomPatientId()), doctors.get(doctor),
+                firstDay.plusDays(rest / times.size()), times.get((int) (rest % times.size())));
+    }
+
+    @Benchmark
+    public Review createReviewForDoctor() {
+        Doctor doctor = doctors.get(ThreadLocalRandom.current().nextInt(doctors.size()));
+        return reviewService.createReviewForDoctor(patientService.getPatientReference(state.randomPatientId()),
+                doctor, 1 + ThreadLocalRandom.current().nextInt(5), "Benchmark review");
+    }
+}
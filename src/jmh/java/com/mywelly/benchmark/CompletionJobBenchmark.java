@@ -0,0 +1,48 @@
+package com.mywelly.benchmark;
+
+import com.mywelly.service.AppointmentService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// One full pass of the completion job over the seeded backlog of elapsed appointments
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CompletionJobBenchmark {
+
+    private AppointmentService appointmentService;
+    private JdbcTemplate jdbc;
+    private int backlog;
+
+    @Setup
+    public void setUp(BenchmarkState state) {
+        appointmentService = state.bean(AppointmentService.class);
+        jdbc = state.bean(JdbcTemplate.class);
+    }
+
+    // Puts every elapsed COMPLETED row back to SCHEDULED so each pass has the same amount of work
+    @Setup(Level.Iteration)
+    public void resetBacklog() {
+        backlog = jdbc.update("UPDATE appointments SET status = 'SCHEDULED' WHERE status = 'COMPLETED' AND starts_at < ?",
+                LocalDateTime.now().minusHours(2));
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkBacklog() {
+        if (appointmentService.getLastCompletionCount() != backlog) {
+            throw new IllegalStateException("Completed " + appointmentService.getLastCompletionCount() +
+                    " of " + backlog + " appointments");
+        }
+    }
+
+    @Benchmark
+    public void updateCompletedAppointments() {
+        appointmentService.updateCompletedAppointments();
+    }
+}
@@ -0,0 +1,65 @@
+package com.mywelly.benchmark;
+
+import com.mywelly.dto.DoctorAppointmentView;
+import com.mywelly.dto.PatientAppointmentView;
+import com.mywelly.dto.ReviewView;
+import com.mywelly.repository.DoctorRepository;
+import com.mywelly.service.AppointmentService;
+import com.mywelly.service.PatientService;
+import com.mywelly.service.ReviewService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The reads behind the patient and doctor dashboards, for a random account each call
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class DashboardBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private BenchmarkState state;
+    private AppointmentService appointmentService;
+    private ReviewService reviewService;
+    private PatientService patientService;
+    private DoctorRepository doctorRepository;
+
+    @Setup
+    public void setUp(BenchmarkState state) {
+        this.state = state;
+        appointmentService = state.bean(AppointmentService.class);
+        reviewService = state.bean(ReviewService.class);
+        patientService = state.bean(PatientService.class);
+        doctorRepository = state.bean(DoctorRepository.class);
+    }
+
+    @Benchmark
+    public List<PatientAppointmentView> patientUpcoming() {
+        return appointmentService.getUpcomingAppointmentsForPatient(
+                patientService.getPatientReference(state.randomPatientId()));
+    }
+
+    @Benchmark
+    public Slice<PatientAppointmentView> patientHistory() {
+        return appointmentService.getPastAppointmentsForPatient(
+                patientService.getPatientReference(state.randomPatientId()), null, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<DoctorAppointmentView> doctorUpcoming() {
+        return appointmentService.getUpcomingAppointmentsForDoctor(
+                doctorRepository.getReferenceById(state.randomDoctorId()));
+    }
+
+    @Benchmark
+    public Slice<ReviewView> doctorReviews() {
+        return reviewService.getReviewsForDoctor(
+                doctorRepository.getReferenceById(state.randomDoctorId()), null, null, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,131 @@
+package com.mywelly.benchmark;
+
+import com.mywelly.MyWellyApplication;
+import com.mywelly.config.SyntheticDataGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// End-to-end HTTP load against the embedded Tomcat, one logged-in patient per client thread.
+// Compare thread modes (virtual needs a Java 21+ JVM) at a concurrency above Tomcat's 200 worker threads:
+//   mvn -Pjmh -DskipTests compile exec:exec -Djmh.args="HttpLoadBenchmark -t 400 -p threadMode=platform,virtual"
+// and the per-request cost of the shared session store against container sessions:
+//   mvn -Pjmh -DskipTests compile exec:exec -Djmh.args="HttpLoadBenchmark -p sessionStore=jdbc,container"
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Threads(64)
+@Fork(1)
+public class HttpLoadBenchmark {
+
+    private static final Pattern CSRF_TOKEN = Pattern.compile("name=\"_csrf\" value=\"([^\"]+)\"");
+
+    @Param("platform")
+    public String threadMode;
+
+    @Param("jdbc")
+    public String sessionStore;
+
+    @Param("2000")
+    public int doctors;
+
+    @Param("5000")
+    public int patients;
+
+    @Param("20000")
+    public int appointments;
+
+    @Param("20000")
+    public int reviews;
+
+    private ConfigurableApplicationContext context;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void start() {
+        List<String> extra = new ArrayList<>(List.of("--server.port=0",
+                "--spring.h2.console.enabled=false",
+                "--mywelly.threads.virtual=" + threadMode.equals("virtual")));
+        if (sessionStore.equals("container")) {
+            // Repeated options are merged, so this adds to the exclusions BenchmarkState passes
+            extra.add("--spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.session.SessionAutoConfiguration");
+        }
+        context = new SpringApplicationBuilder(MyWellyApplication.class)
+                .run(BenchmarkState.arguments(patients, doctors, appointments, reviews, 42, extra.toArray(new String[0])));
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        HttpClient http;
+
+        @Setup(Level.Trial)
+        public void login(HttpLoadBenchmark server, ThreadParams threadParams) throws Exception {
+            http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .cookieHandler(new CookieManager())
+                    .build();
+
+            Matcher token = CSRF_TOKEN.matcher(server.get(http, "/login").body());
+            if (!token.find()) {
+                throw new IllegalStateException("No CSRF token on the login page");
+            }
+            String email = "patient" + (threadParams.getThreadIndex() % server.patients + 1) + "@gen.mywelly.ma";
+            String form = "username=" + URLEncoder.encode(email, StandardCharsets.UTF_8)
+                    + "&password=password123&_csrf=" + URLEncoder.encode(token.group(1), StandardCharsets.UTF_8);
+            HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(server.baseUrl + "/login"))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(form))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            if (!response.headers().firstValue("Location").orElse("").endsWith("/dashboard")) {
+                throw new IllegalStateException("Login failed for " + email);
+            }
+        }
+    }
+
+    @Benchmark
+    public int search(Client client) throws Exception {
+        String specialty = SyntheticDataGenerator.SPECIALTIES[
+                ThreadLocalRandom.current().nextInt(SyntheticDataGenerator.SPECIALTIES.length)];
+        return get(client.http, "/patient/search?specialty=" + URLEncoder.encode(specialty, StandardCharsets.UTF_8))
+                .body().length();
+    }
+
+    @Benchmark
+    public int dashboard(Client client) throws Exception {
+        return get(client.http, "/patient/dashboard").body().length();
+    }
+
+    private HttpResponse<String> get(HttpClient http, String path) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(path + " returned " + response.statusCode());
+        }
+        return response;
+    }
+}
@@ -0,0 +1,58 @@
+package com.mywelly.benchmark;
+
+import com.mywelly.config.SyntheticDataGenerator;
+import com.mywelly.dto.DoctorSummary;
+import com.mywelly.repository.DoctorRepository;
+import com.mywelly.service.DoctorService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Doctor search with a specialty and city filter, through the in-memory index and straight against the database
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class SearchBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private DoctorService doctorService;
+    private DoctorRepository doctorRepository;
+
+    @Setup
+    public void setUp(BenchmarkState state) {
+        doctorService = state.bean(DoctorService.class);
+        doctorRepository = state.bean(DoctorRepository.class);
+    }
+
+    @Benchmark
+    public Slice<DoctorSummary> serviceSearch() {
+        return doctorService.searchDoctors(null, specialty(), city(), null, null, null, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Slice<DoctorSummary> repositorySearch() {
+        return doctorRepository.searchDoctors(null, specialty(), city(), null, null, null, null,
+                PageRequest.of(0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Slice<DoctorSummary> repositorySearchByName() {
+        return doctorRepository.searchDoctors("ben", null, null, 300.0, 500.0, null, null,
+                PageRequest.of(0, PAGE_SIZE));
+    }
+
+    private static String specialty() {
+        return SyntheticDataGenerator.SPECIALTIES[ThreadLocalRandom.current().nextInt(SyntheticDataGenerator.SPECIALTIES.length)];
+    }
+
+    private static String city() {
+        return SyntheticDataGenerator.CITIES[ThreadLocalRandom.current().nextInt(SyntheticDataGenerator.CITIES.length)];
+    }
+}
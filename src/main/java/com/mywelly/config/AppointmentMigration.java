@@ -0,0 +1,21 @@
+package com.mywelly.config;
+
+import com.mywelly.service.AppointmentService;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class AppointmentMigration {
+
+    @Bean
+    CommandLineRunner backfillAppointmentStartTimes(AppointmentService appointmentService) {
+        return args -> {
+            // Idempotent: only rows still missing starts_at are touched, in chunks
+            long migrated = appointmentService.backfillStartTimes();
+            if (migrated > 0) {
+                System.out.println("Backfilled starts_at for " + migrated + " appointments");
+            }
+        };
+    }
+}
@@ -72,8 +72,9 @@ public class DataInitializer {
             doctor.setWorkingHours(docData[5]);
             doctor.setCertificates(docData[6]);
             doctor.setConsultationFee(Double.parseDouble(docData[7]));
-            doctor.setAverageRating(4.0 + (Math.random() * 1.0));
             doctor.setTotalReviews((int)(Math.random() * 50) + 5);
+            doctor.setRatingSum(Math.round(doctor.getTotalReviews() * (4.0 + (Math.random() * 1.0))));
+            doctor.setAverageRating(Math.round(doctor.getRatingSum() * 10.0 / doctor.getTotalReviews()) / 10.0);
 
             userService.registerDoctor(doctorUser, doctor);
         }
@@ -98,8 +99,9 @@ public class DataInitializer {
             lab.setLocation(labData[2]);
             lab.setPhoneNumber(labData[3]);
             lab.setWorkingHours(labData[4]);
-            lab.setAverageRating(4.2 + (Math.random() * 0.8));
             lab.setTotalReviews((int)(Math.random() * 30) + 10);
+            lab.setRatingSum(Math.round(lab.getTotalReviews() * (4.2 + (Math.random() * 0.8))));
+            lab.setAverageRating(Math.round(lab.getRatingSum() * 10.0 / lab.getTotalReviews()) / 10.0);
 
             userService.registerLaboratory(labUser, lab);
         }
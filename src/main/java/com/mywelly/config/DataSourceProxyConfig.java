@@ -0,0 +1,41 @@
+package com.mywelly.config;
+
+import com.mywelly.monitoring.QueryStatisticsListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+@Configuration
+public class DataSourceProxyConfig {
+
+    // Only the application-facing "dataSource" is wrapped; with replicas configured the pools behind it
+    // stay unwrapped so every statement is counted once. The concurrency guard sits inside the statistics
+    // proxy so permit waits are not counted as SQL time.
+    @Bean
+    public static BeanPostProcessor dataSourceProxyPostProcessor(
+            @Value("${mywelly.sql.slow-threshold:200ms}") Duration slowThreshold,
+            @Value("${mywelly.datasource.concurrency-guard:${mywelly.threads.virtual:false}}") boolean concurrencyGuard,
+            @Value("${mywelly.datasource.max-concurrency:10}") int maxConcurrency,
+            @Value("${spring.datasource.hikari.connection-timeout:30000}") long connectionTimeoutMillis) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)) {
+                    if (concurrencyGuard) {
+                        dataSource = new ConnectionConcurrencyGuard(dataSource, maxConcurrency, connectionTimeoutMillis);
+                    }
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(new QueryStatisticsListener(slowThreshold.toMillis()))
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
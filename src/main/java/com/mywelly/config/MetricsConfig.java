@@ -0,0 +1,124 @@
+package com.mywelly.config;
+
+import com.mywelly.service.AppointmentService;
+import com.mywelly.service.EmailDispatcher;
+import com.mywelly.service.LoginAttemptTracker;
+import com.mywelly.service.ReminderScheduler;
+import com.mywelly.service.ReviewService;
+import com.mywelly.session.ExpiredSessionCleaner;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+// Publishes the services' own counters to Micrometer; HTTP, repository and Hikari pool meters come from Boot
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder appointmentMetrics(AppointmentService appointmentService) {
+        return registry -> {
+            FunctionCounter.builder("mywelly.bookings", appointmentService, AppointmentService::getBookedTotal)
+                    .tag("outcome", "success")
+                    .description("Appointments booked")
+                    .register(registry);
+            FunctionCounter.builder("mywelly.bookings", appointmentService, AppointmentService::getBookingConflictsTotal)
+                    .tag("outcome", "conflict")
+                    .description("Bookings rejected because the slot was taken")
+                    .register(registry);
+            FunctionCounter.builder("mywelly.no.shows", appointmentService, AppointmentService::getNoShowsTotal)
+                    .description("Appointments marked as no-show")
+                    .register(registry);
+            FunctionCounter.builder("mywelly.appointments.completed", appointmentService, AppointmentService::getCompletedTotal)
+                    .description("Appointments transitioned to COMPLETED by the completion job")
+                    .register(registry);
+            FunctionTimer.builder("mywelly.completion.job", appointmentService,
+                            AppointmentService::getCompletionRunsTotal,
+                            AppointmentService::getCompletionMillisTotal, TimeUnit.MILLISECONDS)
+                    .description("Runs of the appointment completion job")
+                    .register(registry);
+            // Runs a count query per scrape
+            Gauge.builder("mywelly.completion.backlog", appointmentService, AppointmentService::getOverdueCount)
+                    .description("Elapsed SCHEDULED appointments waiting for the completion job")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder reviewMetrics(ReviewService reviewService) {
+        return registry -> FunctionCounter.builder("mywelly.reviews", reviewService, ReviewService::getReviewsTotal)
+                .description("Reviews submitted for doctors and laboratories")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder loginMetrics(LoginAttemptTracker loginAttemptTracker) {
+        return registry -> {
+            FunctionCounter.builder("mywelly.login.failures", loginAttemptTracker, LoginAttemptTracker::getFailuresTotal)
+                    .description("Logins rejected for bad credentials")
+                    .register(registry);
+            FunctionCounter.builder("mywelly.lockouts", loginAttemptTracker, LoginAttemptTracker::getLockoutsTotal)
+                    .description("Accounts locked after repeated failed logins")
+                    .register(registry);
+            FunctionCounter.builder("mywelly.login.blocked", loginAttemptTracker, LoginAttemptTracker::getBlockedTotal)
+                    .description("Logins refused by the in-memory lockout before checking the password")
+                    .register(registry);
+            Gauge.builder("mywelly.login.tracked", loginAttemptTracker, LoginAttemptTracker::getTrackedAccountCount)
+                    .tag("key", "email")
+                    .register(registry);
+            Gauge.builder("mywelly.login.tracked", loginAttemptTracker, LoginAttemptTracker::getTrackedAddressCount)
+                    .tag("key", "address")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder reminderMetrics(ReminderScheduler reminderScheduler) {
+        return registry -> {
+            Gauge.builder("mywelly.reminders.pending", reminderScheduler, ReminderScheduler::getPendingCount)
+                    .description("Reminders waiting in the timing wheel")
+                    .register(registry);
+            FunctionCounter.builder("mywelly.reminders.fired", reminderScheduler, ReminderScheduler::getFiredTotal)
+                    .description("Reminders handed to the outbox")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder sessionMetrics(ExpiredSessionCleaner expiredSessionCleaner) {
+        return registry -> {
+            FunctionCounter.builder("mywelly.sessions.expired", expiredSessionCleaner, ExpiredSessionCleaner::getExpiredTotal)
+                    .description("Expired sessions deleted from the shared session store")
+                    .register(registry);
+            // Runs a count query per scrape
+            Gauge.builder("mywelly.sessions.active", expiredSessionCleaner, ExpiredSessionCleaner::getActiveCount)
+                    .description("Unexpired sessions in the shared session store")
+                    .register(registry);
+        };
+    }
+
+    // The dispatcher is absent when the outbox is disabled
+    @Bean
+    public MeterBinder outboxMetrics(ObjectProvider<EmailDispatcher> emailDispatcher) {
+        return registry -> emailDispatcher.ifAvailable(dispatcher -> {
+            FunctionCounter.builder("mywelly.outbox.sent", dispatcher, EmailDispatcher::getSentTotal)
+                    .description("Outbox emails delivered")
+                    .register(registry);
+            FunctionCounter.builder("mywelly.outbox.failed.attempts", dispatcher, EmailDispatcher::getFailedAttemptsTotal)
+                    .description("Outbox delivery attempts that failed")
+                    .register(registry);
+            FunctionCounter.builder("mywelly.outbox.abandoned", dispatcher, EmailDispatcher::getAbandonedTotal)
+                    .description("Outbox emails given up after the last attempt")
+                    .register(registry);
+            // Runs a count query per scrape
+            Gauge.builder("mywelly.outbox.pending", dispatcher, EmailDispatcher::getPendingCount)
+                    .description("Outbox emails waiting to be sent")
+                    .register(registry);
+        });
+    }
+}
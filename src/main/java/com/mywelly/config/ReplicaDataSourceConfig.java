@@ -0,0 +1,70 @@
+package com.mywelly.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Only active when mywelly.datasource.replica.urls is set; otherwise Boot's single DataSource is used
+@Configuration
+@ConditionalOnProperty(prefix = "mywelly.datasource.replica", name = "urls")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(HikariDataSource primaryDataSource,
+                                                     DataSourceProperties properties,
+                                                     @Value("${mywelly.datasource.replica.urls}") List<String> replicaUrls,
+                                                     @Value("${mywelly.datasource.replica.maximum-pool-size:10}") int replicaPoolSize,
+                                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReplicaRoutingDataSource.PRIMARY, primaryDataSource);
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName(ReplicaRoutingDataSource.replicaKey(i));
+            replica.setJdbcUrl(replicaUrls.get(i).trim());
+            replica.setUsername(properties.determineUsername());
+            replica.setPassword(properties.determinePassword());
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setMaximumPoolSize(replicaPoolSize);
+            replica.setReadOnly(true);
+            // Not beans, so Boot's pool metrics do not see them
+            meterRegistry.ifAvailable(replica::setMetricRegistry);
+            targets.put(ReplicaRoutingDataSource.replicaKey(i), replica);
+        }
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(replicaUrls.size());
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        return routing;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        // The transaction manager asks for a connection before the read-only flag is bound;
+        // the lazy proxy defers the lookup to the first statement so routing sees it
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
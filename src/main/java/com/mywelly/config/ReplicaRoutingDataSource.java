@@ -0,0 +1,42 @@
+package com.mywelly.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Sends connections of read-only transactions to the replica pools (round robin), everything else to the primary
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY = "primary";
+
+    private final int replicaCount;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(int replicaCount) {
+        this.replicaCount = replicaCount;
+    }
+
+    static String replicaKey(int index) {
+        return "replica-" + (index + 1);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicaCount == 0 || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        return replicaKey(Math.floorMod(next.getAndIncrement(), replicaCount));
+    }
+
+    // The primary pool is its own bean; only the replica pools are owned here
+    @Override
+    public void close() {
+        getResolvedDataSources().forEach((key, dataSource) -> {
+            if (!PRIMARY.equals(key) && dataSource instanceof HikariDataSource hikari) {
+                hikari.close();
+            }
+        });
+    }
+}
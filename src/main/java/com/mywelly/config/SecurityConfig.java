@@ -1,16 +1,33 @@
 package com.mywelly.config;
 
+import com.mywelly.security.BoundedPasswordEncoder;
+import com.mywelly.security.PasswordHashingBusyException;
+import com.mywelly.security.UserDetailsCache;
 import com.mywelly.service.CustomUserDetailsService;
+import com.mywelly.service.LoginAttemptTracker;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.LockedException;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+
+import java.util.List;
 
 @Configuration
 @EnableWebSecurity
@@ -22,16 +39,40 @@ public class SecurityConfig {
         this.userDetailsService = userDetailsService;
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Bean(destroyMethod = "shutdown")
+    public BoundedPasswordEncoder passwordEncoder(@Value("${mywelly.security.bcrypt.strength:10}") int strength,
+                                                 @Value("${mywelly.security.hashing.threads:2}") int threads,
+                                                 @Value("${mywelly.security.hashing.queue-capacity:32}") int queueCapacity,
+                                                 MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder(strength, threads, queueCapacity, meterRegistry);
     }
 
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
-        DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
+    public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder,
+                                                           LoginAttemptTracker loginAttemptTracker,
+                                                           UserDetailsCache userDetailsCache) {
+        DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider() {
+            // Locked accounts and noisy addresses are refused from memory, before any lookup or hashing.
+            // A full hashing queue is not a bad password; the failure handler turns it into a 503.
+            @Override
+            public Authentication authenticate(Authentication authentication) {
+                if (loginAttemptTracker.isBlocked(authentication.getName(),
+                        LoginAttemptTracker.remoteAddress(authentication))) {
+                    throw new LockedException("Too many failed login attempts");
+                }
+                try {
+                    return super.authenticate(authentication);
+                } catch (PasswordHashingBusyException e) {
+                    throw new AuthenticationServiceException(e.getMessage(), e);
+                }
+            }
+        };
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        // A wrong password against a cached entry is retried with a fresh load, so stale entries cannot lock anyone out
+        authProvider.setUserCache(userDetailsCache);
+        // Rehashes on login when the stored BCrypt cost differs from the configured one
+        authProvider.setUserDetailsPasswordService(userDetailsService);
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
 
@@ -41,10 +82,15 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http,
+                                           @Value("${mywelly.management.allowed-addresses:127.0.0.1,::1}")
+                                           List<String> managementAddresses) throws Exception {
         http
             .authorizeHttpRequests(auth -> auth
-                .requestMatchers("/", "/signup", "/login", "/css/**", "/js/**", "/images/**", "/h2-console/**").permitAll()
+                .requestMatchers("/", "/signup", "/login", "/error", "/css/**", "/js/**", "/images/**", "/h2-console/**").permitAll()
+                .requestMatchers("/actuator/health").permitAll()
+                // Scrapers on the management port need no login, but only from the listed addresses
+                .requestMatchers("/actuator/**").access(fromAddresses(managementAddresses))
                 .requestMatchers("/patient/**").hasAuthority("PATIENT")
                 .requestMatchers("/doctor/**").hasAuthority("DOCTOR")
                 .requestMatchers("/laboratory/**").hasAuthority("LABORATORY")
@@ -54,13 +100,14 @@ public class SecurityConfig {
                 .loginPage("/login")
                 .loginProcessingUrl("/login")
                 .defaultSuccessUrl("/dashboard", true)
+                .failureHandler(loginFailureHandler())
                 .permitAll()
             )
             .logout(logout -> logout
                 .logoutUrl("/logout")
                 .logoutSuccessUrl("/")
                 .invalidateHttpSession(true)
-                .deleteCookies("JSESSIONID")
+                .deleteCookies("SESSION")
                 .permitAll()
             )
             .csrf(csrf -> csrf
@@ -72,4 +119,22 @@ public class SecurityConfig {
 
         return http.build();
     }
+
+    private static AuthorizationManager<RequestAuthorizationContext> fromAddresses(List<String> addresses) {
+        List<IpAddressMatcher> matchers = addresses.stream().map(IpAddressMatcher::new).toList();
+        return (authentication, context) -> new AuthorizationDecision(
+                matchers.stream().anyMatch(matcher -> matcher.matches(context.getRequest())));
+    }
+
+    private AuthenticationFailureHandler loginFailureHandler() {
+        AuthenticationFailureHandler loginError = new SimpleUrlAuthenticationFailureHandler("/login?error");
+        return (request, response, exception) -> {
+            if (exception.getCause() instanceof PasswordHashingBusyException) {
+                response.setHeader("Retry-After", "1");
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, exception.getMessage());
+            } else {
+                loginError.onAuthenticationFailure(request, response, exception);
+            }
+        };
+    }
 }
@@ -0,0 +1,64 @@
+package com.mywelly.config;
+
+import com.mywelly.session.RequestSessionScopeFilter;
+import com.mywelly.session.SessionAttributeCodec;
+import com.mywelly.session.ThrottledSessionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.Session;
+import org.springframework.session.config.SessionRepositoryCustomizer;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+import org.springframework.session.web.http.SessionRepositoryFilter;
+
+import java.time.Duration;
+
+// HTTP sessions live in SPRING_SESSION on the primary database (Spring Session, configured by Boot from
+// spring.session.*), so any node can serve any request. The tuning below only applies when that repository exists.
+@Configuration
+public class SessionConfig {
+
+    @Bean
+    public SessionRepositoryCustomizer<JdbcIndexedSessionRepository> compactSessionAttributes(
+            ApplicationContext context,
+            @Value("${mywelly.session.compression-threshold:512}") int compressionThreshold) {
+        SessionAttributeCodec codec = new SessionAttributeCodec(context.getClassLoader(), compressionThreshold);
+        GenericConversionService conversionService = new GenericConversionService();
+        conversionService.addConverter(Object.class, byte[].class, codec::serialize);
+        conversionService.addConverter(byte[].class, Object.class, codec::deserialize);
+        return repository -> repository.setConversionService(conversionService);
+    }
+
+    @Bean
+    public static BeanPostProcessor throttledSessionRepositoryPostProcessor(
+            @Value("${mywelly.session.touch-interval:1m}") Duration touchInterval) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof JdbcIndexedSessionRepository repository) {
+                    return throttle(repository, touchInterval);
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Just outside SessionRepositoryFilter, so the memoized lookups also cover its final save
+    @Bean
+    public FilterRegistrationBean<RequestSessionScopeFilter> requestSessionScopeFilter() {
+        FilterRegistrationBean<RequestSessionScopeFilter> registration =
+                new FilterRegistrationBean<>(new RequestSessionScopeFilter());
+        registration.setOrder(SessionRepositoryFilter.DEFAULT_ORDER - 1);
+        return registration;
+    }
+
+    private static <S extends Session> ThrottledSessionRepository<S> throttle(
+            FindByIndexNameSessionRepository<S> repository, Duration touchInterval) {
+        return new ThrottledSessionRepository<>(repository, touchInterval);
+    }
+}
@@ -0,0 +1,311 @@
+package com.mywelly.config;
+
+import com.mywelly.service.PatientService;
+import com.mywelly.service.ReviewService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+
+// Bulk-loads a large synthetic dataset for load testing (run with --spring.profiles.active=generate).
+// Rows are written with JDBC batches by parallel workers; each batch draws from its own seeded random,
+// so the same seed yields the same data whatever the thread count.
+@Component
+@Profile("generate")
+public class SyntheticDataGenerator {
+
+    public static final String EMAIL_DOMAIN = "gen.mywelly.ma";
+    public static final String[] SPECIALTIES = {"Cardiology", "Dermatology", "Pediatrics", "Orthopedics",
+            "Neurology", "General Practice", "Ophthalmology", "Gynecology", "Psychiatry", "Dentistry",
+            "Endocrinology", "Pulmonology"};
+    public static final String[] CITIES = {"Casablanca", "Rabat", "Marrakech", "Fes", "Tangier", "Agadir",
+            "Meknes", "Oujda", "Kenitra", "Tetouan", "Safi", "El Jadida", "Laayoune", "Guelmim", "Ben Guerir"};
+    // Rough population weights for CITIES
+    private static final int[] CITY_WEIGHTS = {30, 14, 10, 10, 8, 6, 5, 4, 3, 3, 2, 2, 1, 1, 1};
+    private static final String[] HOURS = {"8:00-16:00", "8:30-16:30", "9:00-17:00", "10:00-18:00"};
+    private static final String[] FIRST_NAMES = {"Ahmed", "Fatima", "Mohammed", "Amina", "Youssef", "Sara",
+            "Karim", "Zineb", "Omar", "Khadija", "Hamza", "Salma", "Rachid", "Imane", "Mehdi", "Nadia",
+            "Ayoub", "Hajar", "Anas", "Meryem", "Yassine", "Houda", "Adil", "Loubna"};
+    private static final String[] LAST_NAMES = {"Alami", "Bennis", "Idrissi", "El Amrani", "Benjelloun",
+            "Benkirane", "Chakir", "Tazi", "Fassi", "Berrada", "Sqalli", "Lahlou", "Naciri", "Ouazzani",
+            "Bouzid", "El Khatib", "Zniber", "Chraibi", "Kettani", "Lamrani"};
+    private static final String[] COMMENTS = {"Very professional and attentive.", "Clear explanations, short wait.",
+            "Good consultation overall.", "Waited too long but the care was fine.", "Excellent, highly recommended.",
+            "Friendly staff and clean clinic.", "Not satisfied with the follow-up."};
+    // 10:00-16:00 lies inside every entry of HOURS
+    private static final int SLOTS_PER_DAY = 12;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate batchTransaction;
+    private final PasswordEncoder passwordEncoder;
+    private final ReviewService reviewService;
+    private final PatientService patientService;
+
+    private final int patients;
+    private final int doctors;
+    private final int laboratories;
+    private final int appointments;
+    private final int reviews;
+    private final long seed;
+    private final int threads;
+    private final int batchSize;
+    private final String password;
+
+    private long firstPatientId;
+    private long firstDoctorId;
+
+    public SyntheticDataGenerator(JdbcTemplate jdbc,
+                                  PlatformTransactionManager transactionManager,
+                                  PasswordEncoder passwordEncoder,
+                                  ReviewService reviewService,
+                                  PatientService patientService,
+                                  @Value("${mywelly.generator.patients:100000}") int patients,
+                                  @Value("${mywelly.generator.doctors:10000}") int doctors,
+                                  @Value("${mywelly.generator.laboratories:500}") int laboratories,
+                                  @Value("${mywelly.generator.appointments:1000000}") int appointments,
+                                  @Value("${mywelly.generator.reviews:500000}") int reviews,
+                                  @Value("${mywelly.generator.seed:42}") long seed,
+                                  @Value("${mywelly.generator.threads:4}") int threads,
+                                  @Value("${mywelly.generator.batch-size:1000}") int batchSize,
+                                  @Value("${mywelly.generator.password:password123}") String password) {
+        this.jdbc = jdbc;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.passwordEncoder = passwordEncoder;
+        this.reviewService = reviewService;
+        this.patientService = patientService;
+        this.patients = Math.max(patients, 1);
+        this.doctors = Math.max(doctors, 1);
+        this.laboratories = laboratories;
+        this.appointments = appointments;
+        this.reviews = reviews;
+        this.seed = seed;
+        this.threads = threads;
+        this.batchSize = batchSize;
+        this.password = password;
+    }
+
+    // Runs after the command line runners (sample data) and before the in-memory indexes are loaded
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void generate() throws InterruptedException {
+        Long existing = jdbc.queryForObject("SELECT MIN(p.id) FROM patients p JOIN users u ON u.id = p.user_id " +
+                "WHERE u.email LIKE ?", Long.class, "%@" + EMAIL_DOMAIN);
+        if (existing != null) {
+            firstPatientId = existing;
+            firstDoctorId = jdbc.queryForObject("SELECT MIN(d.id) FROM doctors d JOIN users u ON u.id = d.user_id " +
+                    "WHERE u.email LIKE ?", Long.class, "%@" + EMAIL_DOMAIN);
+            System.out.println("Synthetic data already present, skipping generation");
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            load(workers);
+        } finally {
+            workers.shutdownNow();
+        }
+
+        // Aggregates are derived from the generated rows in one statement each
+        reviewService.reconcileRatings();
+        patientService.reconcileNoShows();
+
+        System.out.println("Generated " + patients + " patients, " + doctors + " doctors, " + laboratories +
+                " laboratories, " + appointments + " appointments and " + reviews + " reviews in " +
+                (System.currentTimeMillis() - start) / 1000 + " s");
+    }
+
+    public long getFirstPatientId() {
+        return firstPatientId;
+    }
+
+    public long getFirstDoctorId() {
+        return firstDoctorId;
+    }
+
+    private void load(ExecutorService workers) throws InterruptedException {
+        // One hash for every account; BCrypt per row would dominate the load time
+        String hash = passwordEncoder.encode(password);
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp createdAt = Timestamp.valueOf(now);
+        long userId = nextId("users");
+        firstPatientId = nextId("patients");
+        firstDoctorId = nextId("doctors");
+        long firstLaboratoryId = nextId("laboratories");
+        long firstDoctorUserId = userId + patients;
+        long firstLaboratoryUserId = firstDoctorUserId + doctors;
+
+        insert(workers, "users", "INSERT INTO users (id, email, password, user_role, created_at, " +
+                "failed_login_attempts, account_locked) VALUES (?, ?, ?, ?, ?, 0, FALSE)",
+                patients + doctors + laboratories, (i, random) -> {
+            // patient1@..., doctor1@..., lab1@...
+            String email = i < patients ? "patient" + (i + 1)
+                    : i < patients + doctors ? "doctor" + (i - patients + 1)
+                    : "lab" + (i - patients - doctors + 1);
+            String role = i < patients ? "PATIENT" : i < patients + doctors ? "DOCTOR" : "LABORATORY";
+            return new Object[] {userId + i, email + "@" + EMAIL_DOMAIN, hash, role, createdAt};
+        });
+
+        insert(workers, "patients", "INSERT INTO patients (id, user_id, full_name, date_of_birth, gender, id_number, " +
+                "phone_number, username, no_show_count, is_blocked) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0, FALSE)",
+                patients, (i, random) -> new Object[] {firstPatientId + i, userId + i, fullName(random),
+                        Date.valueOf(LocalDate.of(1940, 1, 1).plusDays(random.nextInt(30000))),
+                        random.nextBoolean() ? "Male" : "Female", "GN" + (100000 + i), phone(random),
+                        "patient_" + (i + 1)});
+
+        insert(workers, "doctors", "INSERT INTO doctors (id, user_id, name, specialty, location, phone_number, " +
+                "working_hours, certificates, consultation_fee, average_rating, total_reviews, rating_sum) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0, 0, 0)", doctors, (i, random) -> {
+            String specialty = SPECIALTIES[random.nextInt(SPECIALTIES.length)];
+            String city = city(random);
+            return new Object[] {firstDoctorId + i, firstDoctorUserId + i, "Dr. " + fullName(random), specialty,
+                    city, phone(random), HOURS[random.nextInt(HOURS.length)],
+                    "MD " + specialty + ", University of " + city, 200.0 + 50 * random.nextInt(13)};
+        });
+
+        insert(workers, "laboratories", "INSERT INTO laboratories (id, user_id, lab_name, location, phone_number, " +
+                "working_hours, average_rating, total_reviews, rating_sum) VALUES (?, ?, ?, ?, ?, ?, 0, 0, 0)",
+                laboratories, (i, random) -> {
+            String city = city(random);
+            return new Object[] {firstLaboratoryId + i, firstLaboratoryUserId + i,
+                    "Lab " + LAST_NAMES[random.nextInt(LAST_NAMES.length)] + " " + city + " " + (i + 1), city,
+                    phone(random), "7:00-19:00"};
+        });
+
+        // Each doctor's appointments fill consecutive slots of a window centred on today,
+        // so no two rows compete for the same active slot
+        int perDoctor = (appointments + doctors - 1) / doctors;
+        LocalDate firstDay = now.toLocalDate().minusDays((perDoctor + SLOTS_PER_DAY - 1) / SLOTS_PER_DAY / 2);
+        long firstAppointmentId = nextId("appointments");
+        insert(workers, "appointments", "INSERT INTO appointments (id, patient_id, doctor_id, appointment_date, " +
+                "appointment_time, starts_at, duration_minutes, status, cancellation_reason, created_at, active_slot) " +
+                "VALUES (?, ?, ?, ?, ?, ?, 30, ?, ?, ?, ?)", appointments, (i, random) -> {
+            int slot = i / doctors;
+            LocalDate day = firstDay.plusDays(slot / SLOTS_PER_DAY);
+            LocalDateTime startsAt = day.atTime(10, 0).plusMinutes(30L * (slot % SLOTS_PER_DAY));
+            String status = status(random, startsAt.isBefore(now));
+            return new Object[] {firstAppointmentId + i, firstPatientId + random.nextInt(patients),
+                    firstDoctorId + i % doctors, Date.valueOf(day), startsAt.toLocalTime().toString(),
+                    Timestamp.valueOf(startsAt), status,
+                    "CANCELLED_BY_DOCTOR".equals(status) ? "Doctor unavailable" : null,
+                    Timestamp.valueOf(startsAt.minusDays(1 + random.nextInt(30))),
+                    "SCHEDULED".equals(status) ? Boolean.TRUE : null};
+        });
+
+        long firstReviewId = nextId("reviews");
+        insert(workers, "reviews", "INSERT INTO reviews (id, patient_id, doctor_id, lab_id, rating, comment, created_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", reviews, (i, random) -> {
+            boolean lab = laboratories > 0 && random.nextInt(10) == 0;
+            return new Object[] {firstReviewId + i, firstPatientId + random.nextInt(patients),
+                    lab ? null : firstDoctorId + random.nextInt(doctors),
+                    lab ? firstLaboratoryId + random.nextInt(laboratories) : null, rating(random),
+                    COMMENTS[random.nextInt(COMMENTS.length)],
+                    Timestamp.valueOf(now.minusMinutes(random.nextInt(2 * 525_600)))};
+        });
+
+        for (String table : List.of("users", "patients", "doctors", "laboratories", "appointments", "reviews")) {
+            restartIdentity(table);
+        }
+    }
+
+    // Splits the rows into batches; a batch's content depends only on the seed, the table and its position
+    private void insert(ExecutorService workers, String table, String sql, int count, RowFactory rows)
+            throws InterruptedException {
+        long start = System.currentTimeMillis();
+        List<Callable<int[]>> batches = new ArrayList<>();
+        for (int from = 0; from < count; from += batchSize) {
+            int first = from;
+            int last = Math.min(from + batchSize, count);
+            batches.add(() -> {
+                SplittableRandom random = new SplittableRandom(seed * 31 + table.hashCode() * 1_000_003L + first);
+                List<Object[]> args = new ArrayList<>(last - first);
+                for (int i = first; i < last; i++) {
+                    args.add(rows.row(i, random));
+                }
+                return batchTransaction.execute(status -> jdbc.batchUpdate(sql, args));
+            });
+        }
+        for (Future<int[]> batch : workers.invokeAll(batches)) {
+            try {
+                batch.get();
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Generating data failed: " + sql, e.getCause());
+            }
+        }
+        System.out.println("  " + table + ": " + count + " rows in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private long nextId(String table) {
+        Long max = jdbc.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        return max != null ? max + 1 : 1;
+    }
+
+    // MySQL moves AUTO_INCREMENT past explicit ids by itself; H2 identities have to be told
+    private void restartIdentity(String table) {
+        String product = jdbc.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if ("H2".equals(product)) {
+            jdbc.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + nextId(table));
+        }
+    }
+
+    private static String status(SplittableRandom random, boolean past) {
+        int roll = random.nextInt(100);
+        if (!past) {
+            return roll < 92 ? "SCHEDULED" : "CANCELLED_BY_PATIENT";
+        }
+        if (roll < 80) {
+            return "COMPLETED";
+        }
+        if (roll < 90) {
+            return "CANCELLED_BY_PATIENT";
+        }
+        return roll < 96 ? "CANCELLED_BY_DOCTOR" : "NO_SHOW";
+    }
+
+    // Skewed towards good ratings, like real review sites
+    private static int rating(SplittableRandom random) {
+        int roll = random.nextInt(100);
+        return roll < 45 ? 5 : roll < 75 ? 4 : roll < 88 ? 3 : roll < 95 ? 2 : 1;
+    }
+
+    private static String city(SplittableRandom random) {
+        int roll = random.nextInt(100);
+        for (int i = 0; i < CITIES.length; i++) {
+            roll -= CITY_WEIGHTS[i];
+            if (roll < 0) {
+                return CITIES[i];
+            }
+        }
+        return CITIES[0];
+    }
+
+    private static String fullName(SplittableRandom random) {
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+    }
+
+    private static String phone(SplittableRandom random) {
+        return "+2126" + (10_000_000 + random.nextInt(90_000_000));
+    }
+
+    private interface RowFactory {
+        Object[] row(int i, SplittableRandom random);
+    }
+}
@@ -0,0 +1,56 @@
+package com.mywelly.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskSchedulerCustomizer;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+// Runs Tomcat requests, @Scheduled jobs and MVC async work on virtual threads.
+// The build targets Java 17, so the virtual thread API is looked up reflectively and needs a Java 21+ runtime.
+@Configuration
+@ConditionalOnProperty(name = "mywelly.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadRequestExecutor() {
+        Executor executor = threadPerTask(virtualThreads("http-virtual-"));
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    // Keeps the configured pool size; each pool worker is a virtual thread
+    @Bean
+    public TaskSchedulerCustomizer virtualThreadScheduler() {
+        ThreadFactory factory = virtualThreads("scheduling-virtual-");
+        return scheduler -> scheduler.setThreadFactory(factory);
+    }
+
+    // Replaces Boot's bounded applicationTaskExecutor
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(threadPerTask(virtualThreads("task-virtual-")));
+    }
+
+    private static Executor threadPerTask(ThreadFactory factory) {
+        return command -> factory.newThread(command).start();
+    }
+
+    // Thread.ofVirtual().name(prefix, 0).factory()
+    private static ThreadFactory virtualThreads(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("mywelly.threads.virtual=true needs Java 21 or later, running on "
+                    + System.getProperty("java.version"), e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.mywelly.config;
+
+import com.mywelly.monitoring.StatementBudgetInterceptor;
+import com.mywelly.security.CurrentProfileArgumentResolver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final boolean enforceStatementBudgets;
+
+    public WebConfig(@Value("${mywelly.sql.budget.enforce:false}") boolean enforceStatementBudgets) {
+        this.enforceStatementBudgets = enforceStatementBudgets;
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new CurrentProfileArgumentResolver());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new StatementBudgetInterceptor(enforceStatementBudgets));
+    }
+}
@@ -1,8 +1,10 @@
 package com.mywelly.controller;
 
 import com.mywelly.model.*;
+import com.mywelly.security.AuthenticatedUser;
+import com.mywelly.security.CurrentPatient;
 import com.mywelly.service.*;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -14,16 +16,15 @@ import java.time.LocalDate;
 @RequestMapping("/appointment")
 public class AppointmentController {
 
-    private final UserService userService;
+    private static final int FREE_SLOT_DAYS = 7;
+
     private final PatientService patientService;
     private final DoctorService doctorService;
     private final AppointmentService appointmentService;
 
-    public AppointmentController(UserService userService,
-                                PatientService patientService,
+    public AppointmentController(PatientService patientService,
                                 DoctorService doctorService,
                                 AppointmentService appointmentService) {
-        this.userService = userService;
         this.patientService = patientService;
         this.doctorService = doctorService;
         this.appointmentService = appointmentService;
@@ -35,6 +36,8 @@ public class AppointmentController {
                 .orElseThrow(() -> new RuntimeException("Doctor not found"));
 
         model.addAttribute("doctor", doctor);
+        model.addAttribute("freeSlots", appointmentService.getFreeSlots(doctor, FREE_SLOT_DAYS));
+        model.addAttribute("slotTimes", appointmentService.getWorkingSlots(doctor));
         return "appointment/book";
     }
 
@@ -42,14 +45,10 @@ public class AppointmentController {
     public String bookAppointment(@PathVariable Long doctorId,
                                   @RequestParam("date") String date,
                                   @RequestParam("time") String time,
-                                  Authentication authentication,
+                                  CurrentPatient currentPatient,
                                   RedirectAttributes redirectAttributes) {
         try {
-            User user = userService.findByEmail(authentication.getName())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
-            Patient patient = patientService.getPatientByUserId(user.getId())
-                    .orElseThrow(() -> new RuntimeException("Patient not found"));
+            Patient patient = patientService.getPatientReference(currentPatient.patientId());
 
             Doctor doctor = doctorService.getDoctorById(doctorId)
                     .orElseThrow(() -> new RuntimeException("Doctor not found"));
@@ -68,16 +67,13 @@ public class AppointmentController {
     @PostMapping("/cancel/{appointmentId}")
     public String cancelAppointment(@PathVariable Long appointmentId,
                                    @RequestParam(value = "reason", required = false) String reason,
-                                   Authentication authentication,
+                                   @AuthenticationPrincipal AuthenticatedUser user,
                                    RedirectAttributes redirectAttributes) {
-        User user = userService.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        if (user.getUserRole() == User.UserRole.PATIENT) {
+        if (user.getRole() == User.UserRole.PATIENT) {
             appointmentService.cancelAppointmentByPatient(appointmentId);
             redirectAttributes.addFlashAttribute("success", "Appointment cancelled successfully");
             return "redirect:/patient/dashboard";
-        } else if (user.getUserRole() == User.UserRole.DOCTOR) {
+        } else if (user.getRole() == User.UserRole.DOCTOR) {
             appointmentService.cancelAppointmentByDoctor(appointmentId, reason);
             redirectAttributes.addFlashAttribute("success", "Appointment cancelled successfully");
             return "redirect:/doctor/dashboard";
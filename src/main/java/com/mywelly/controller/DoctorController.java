@@ -1,79 +1,112 @@
 package com.mywelly.controller;
 
+import com.mywelly.dto.DoctorAppointmentView;
+import com.mywelly.dto.ReviewView;
 import com.mywelly.model.*;
+import com.mywelly.monitoring.StatementBudget;
+import com.mywelly.security.CurrentDoctor;
 import com.mywelly.service.*;
-import org.springframework.security.core.Authentication;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Controller
 @RequestMapping("/doctor")
 public class DoctorController {
 
-    private final UserService userService;
+    private static final int PAGE_SIZE = 20;
+
     private final DoctorService doctorService;
     private final AppointmentService appointmentService;
     private final ReviewService reviewService;
 
-    public DoctorController(UserService userService,
-                           DoctorService doctorService,
+    public DoctorController(DoctorService doctorService,
                            AppointmentService appointmentService,
                            ReviewService reviewService) {
-        this.userService = userService;
         this.doctorService = doctorService;
         this.appointmentService = appointmentService;
         this.reviewService = reviewService;
     }
 
     @GetMapping("/dashboard")
-    public String dashboard(Authentication authentication, Model model) {
-        User user = userService.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        Doctor doctor = doctorService.getDoctorByUserId(user.getId())
+    @StatementBudget(3)
+    public String dashboard(@RequestParam(value = "afterCreatedAt", required = false)
+                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterCreatedAt,
+                            @RequestParam(value = "afterId", required = false) Long afterId,
+                            CurrentDoctor currentDoctor, Model model) {
+        Doctor doctor = doctorService.getDoctorById(currentDoctor.doctorId())
                 .orElseThrow(() -> new RuntimeException("Doctor not found"));
 
-        List<Appointment> upcomingAppointments =
+        List<DoctorAppointmentView> upcomingAppointments =
                 appointmentService.getUpcomingAppointmentsForDoctor(doctor);
 
-        List<Review> recentReviews = reviewService.getReviewsForDoctor(doctor);
+        Slice<ReviewView> recentReviews = reviewService.getReviewsForDoctor(doctor, afterCreatedAt, afterId, PAGE_SIZE);
 
         model.addAttribute("doctor", doctor);
         model.addAttribute("upcomingAppointments", upcomingAppointments);
-        model.addAttribute("recentReviews", recentReviews);
+        model.addAttribute("recentReviews", recentReviews.getContent());
+        model.addAttribute("hasMoreReviews", recentReviews.hasNext());
+        if (recentReviews.hasNext()) {
+            ReviewView last = recentReviews.getContent().get(recentReviews.getNumberOfElements() - 1);
+            model.addAttribute("nextCreatedAt", last.createdAt());
+            model.addAttribute("nextId", last.id());
+        }
 
         return "doctor/dashboard";
     }
 
-    @GetMapping("/profile")
-    public String profile(Authentication authentication, Model model) {
-        User user = userService.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    @GetMapping("/appointments")
+    @StatementBudget(2)
+    public String appointments(@RequestParam(value = "date", required = false)
+                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                               CurrentDoctor currentDoctor, Model model) {
+        Doctor doctor = doctorService.getDoctorById(currentDoctor.doctorId())
+                .orElseThrow(() -> new RuntimeException("Doctor not found"));
+
+        LocalDate day = date != null ? date : LocalDate.now();
+
+        model.addAttribute("doctor", doctor);
+        model.addAttribute("date", day);
+        model.addAttribute("now", LocalDateTime.now());
+        model.addAttribute("appointments", appointmentService.getAppointmentsForDoctorOn(doctor, day));
+
+        return "doctor/appointments";
+    }
+
+    @PostMapping("/appointments/no-show")
+    public String markNoShows(@RequestParam(value = "ids", required = false) List<Long> ids,
+                              @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                              CurrentDoctor currentDoctor,
+                              RedirectAttributes redirectAttributes) {
+        int marked = ids == null ? 0 : appointmentService.markNoShows(currentDoctor.doctorId(), ids);
+        redirectAttributes.addFlashAttribute("success", marked + " appointment(s) marked as no-show");
+
+        return "redirect:/doctor/appointments?date=" + date;
+    }
 
-        Doctor doctor = doctorService.getDoctorByUserId(user.getId())
+    @GetMapping("/profile")
+    public String profile(CurrentDoctor currentDoctor, Model model) {
+        Doctor doctor = doctorService.getDoctorWithUser(currentDoctor.doctorId())
                 .orElseThrow(() -> new RuntimeException("Doctor not found"));
 
-        model.addAttribute("user", user);
+        model.addAttribute("user", doctor.getUser());
         model.addAttribute("doctor", doctor);
 
         return "doctor/profile";
     }
 
     @PostMapping("/profile/update-location")
-    public String updateLocation(Authentication authentication,
+    public String updateLocation(CurrentDoctor currentDoctor,
                                 @RequestParam("location") String newLocation,
                                 RedirectAttributes redirectAttributes) {
-        User user = userService.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        Doctor doctor = doctorService.getDoctorByUserId(user.getId())
-                .orElseThrow(() -> new RuntimeException("Doctor not found"));
-
-        doctorService.updateLocation(doctor.getId(), newLocation);
+        doctorService.updateLocation(currentDoctor.doctorId(), newLocation);
         redirectAttributes.addFlashAttribute("success", "Location updated successfully");
 
         return "redirect:/doctor/profile";
@@ -1,6 +1,7 @@
 package com.mywelly.controller;
 
 import com.mywelly.model.*;
+import com.mywelly.security.PasswordHashingBusyException;
 import com.mywelly.service.UserService;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -97,6 +98,8 @@ public class HomeController {
             redirectAttributes.addFlashAttribute("success", "Account created successfully! Please login.");
             return "redirect:/login";
 
+        } catch (PasswordHashingBusyException e) {
+            throw e;
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", "Error creating account: " + e.getMessage());
             return "redirect:/signup";
@@ -1,57 +1,66 @@
 package com.mywelly.controller;
 
+import com.mywelly.dto.ReviewView;
 import com.mywelly.model.*;
+import com.mywelly.monitoring.StatementBudget;
+import com.mywelly.security.CurrentLaboratory;
 import com.mywelly.service.*;
 import com.mywelly.repository.LaboratoryRepository;
 import com.mywelly.repository.ReviewRepository;
-import org.springframework.security.core.Authentication;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.time.LocalDateTime;
 
 @Controller
 @RequestMapping("/laboratory")
 public class LaboratoryController {
 
-    private final UserService userService;
+    private static final int PAGE_SIZE = 20;
+
     private final LaboratoryRepository laboratoryRepository;
     private final ReviewRepository reviewRepository;
 
-    public LaboratoryController(UserService userService,
-                               LaboratoryRepository laboratoryRepository,
+    public LaboratoryController(LaboratoryRepository laboratoryRepository,
                                ReviewRepository reviewRepository) {
-        this.userService = userService;
         this.laboratoryRepository = laboratoryRepository;
         this.reviewRepository = reviewRepository;
     }
 
     @GetMapping("/dashboard")
-    public String dashboard(Authentication authentication, Model model) {
-        User user = userService.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        Laboratory laboratory = laboratoryRepository.findByUserId(user.getId())
+    @StatementBudget(2)
+    public String dashboard(@RequestParam(value = "afterCreatedAt", required = false)
+                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterCreatedAt,
+                            @RequestParam(value = "afterId", required = false) Long afterId,
+                            CurrentLaboratory currentLaboratory, Model model) {
+        Laboratory laboratory = laboratoryRepository.findById(currentLaboratory.laboratoryId())
                 .orElseThrow(() -> new RuntimeException("Laboratory not found"));
 
-        List<Review> recentReviews = reviewRepository.findByLaboratoryOrderByCreatedAtDesc(laboratory);
+        Slice<ReviewView> recentReviews = reviewRepository.findByLaboratoryOrderByCreatedAtDesc(
+                laboratory, afterCreatedAt, afterId, PageRequest.of(0, PAGE_SIZE));
 
         model.addAttribute("laboratory", laboratory);
-        model.addAttribute("recentReviews", recentReviews);
+        model.addAttribute("recentReviews", recentReviews.getContent());
+        model.addAttribute("hasMoreReviews", recentReviews.hasNext());
+        if (recentReviews.hasNext()) {
+            ReviewView last = recentReviews.getContent().get(recentReviews.getNumberOfElements() - 1);
+            model.addAttribute("nextCreatedAt", last.createdAt());
+            model.addAttribute("nextId", last.id());
+        }
 
         return "laboratory/dashboard";
     }
 
     @GetMapping("/profile")
-    public String profile(Authentication authentication, Model model) {
-        User user = userService.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        Laboratory laboratory = laboratoryRepository.findByUserId(user.getId())
+    public String profile(CurrentLaboratory currentLaboratory, Model model) {
+        Laboratory laboratory = laboratoryRepository.findWithUserById(currentLaboratory.laboratoryId())
                 .orElseThrow(() -> new RuntimeException("Laboratory not found"));
 
-        model.addAttribute("user", user);
+        model.addAttribute("user", laboratory.getUser());
         model.addAttribute("laboratory", laboratory);
 
         return "laboratory/profile";
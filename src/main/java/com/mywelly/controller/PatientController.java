@@ -1,67 +1,96 @@
 package com.mywelly.controller;
 
+import com.mywelly.dto.DoctorSummary;
+import com.mywelly.dto.PatientAppointmentView;
+import com.mywelly.dto.ReviewView;
 import com.mywelly.model.*;
+import com.mywelly.monitoring.StatementBudget;
+import com.mywelly.security.CurrentPatient;
 import com.mywelly.service.*;
-import org.springframework.security.core.Authentication;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Controller
 @RequestMapping("/patient")
 public class PatientController {
 
+    private static final int PAGE_SIZE = 20;
+
     private final UserService userService;
     private final PatientService patientService;
     private final DoctorService doctorService;
     private final AppointmentService appointmentService;
+    private final ReviewService reviewService;
 
     public PatientController(UserService userService,
                             PatientService patientService,
                             DoctorService doctorService,
-                            AppointmentService appointmentService) {
+                            AppointmentService appointmentService,
+                            ReviewService reviewService) {
         this.userService = userService;
         this.patientService = patientService;
         this.doctorService = doctorService;
         this.appointmentService = appointmentService;
+        this.reviewService = reviewService;
     }
 
     @GetMapping("/dashboard")
-    public String dashboard(Authentication authentication, Model model) {
-        User user = userService.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        Patient patient = patientService.getPatientByUserId(user.getId())
+    @StatementBudget(3)
+    public String dashboard(@RequestParam(value = "afterStartsAt", required = false)
+                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterStartsAt,
+                            @RequestParam(value = "afterId", required = false) Long afterId,
+                            CurrentPatient currentPatient, Model model) {
+        Patient patient = patientService.getPatientById(currentPatient.patientId())
                 .orElseThrow(() -> new RuntimeException("Patient not found"));
 
-        List<Appointment> upcomingAppointments =
+        List<PatientAppointmentView> upcomingAppointments =
                 appointmentService.getUpcomingAppointmentsForPatient(patient);
-        List<Appointment> pastAppointments =
-                appointmentService.getPastAppointmentsForPatient(patient);
+        Slice<PatientAppointmentView> pastAppointments = appointmentService.getPastAppointmentsForPatient(
+                patient, afterStartsAt, afterId, PAGE_SIZE);
 
         model.addAttribute("patient", patient);
         model.addAttribute("upcomingAppointments", upcomingAppointments);
-        model.addAttribute("pastAppointments", pastAppointments);
+        model.addAttribute("pastAppointments", pastAppointments.getContent());
+        model.addAttribute("hasMorePast", pastAppointments.hasNext());
+        if (pastAppointments.hasNext()) {
+            PatientAppointmentView last = pastAppointments.getContent().get(pastAppointments.getNumberOfElements() - 1);
+            model.addAttribute("nextStartsAt", last.startsAt());
+            model.addAttribute("nextId", last.id());
+        }
 
         return "patient/dashboard";
     }
 
     @GetMapping("/search")
+    @StatementBudget(3)
     public String search(@RequestParam(value = "q", required = false) String query,
                         @RequestParam(value = "specialty", required = false) String specialty,
                         @RequestParam(value = "location", required = false) String location,
                         @RequestParam(value = "minPrice", required = false) Double minPrice,
                         @RequestParam(value = "maxPrice", required = false) Double maxPrice,
+                        @RequestParam(value = "afterRating", required = false) Double afterRating,
+                        @RequestParam(value = "afterId", required = false) Long afterId,
                         Model model) {
 
-        List<Doctor> doctors = doctorService.searchDoctors(query, specialty, location, minPrice, maxPrice);
+        Slice<DoctorSummary> doctors = doctorService.searchDoctors(query, specialty, location, minPrice, maxPrice,
+                afterRating, afterId, PAGE_SIZE);
         List<String> specialties = doctorService.getAllSpecialties();
         List<String> locations = doctorService.getAllLocations();
 
-        model.addAttribute("doctors", doctors);
+        model.addAttribute("doctors", doctors.getContent());
+        model.addAttribute("hasMore", doctors.hasNext());
+        if (doctors.hasNext()) {
+            DoctorSummary last = doctors.getContent().get(doctors.getNumberOfElements() - 1);
+            model.addAttribute("nextRating", last.averageRating());
+            model.addAttribute("nextId", last.id());
+        }
         model.addAttribute("specialties", specialties);
         model.addAttribute("locations", locations);
         model.addAttribute("query", query);
@@ -74,43 +103,51 @@ public class PatientController {
     }
 
     @GetMapping("/doctor/{id}")
-    public String viewDoctorProfile(@PathVariable Long id, Model model) {
+    @StatementBudget(2)
+    public String viewDoctorProfile(@PathVariable Long id,
+                                    @RequestParam(value = "afterCreatedAt", required = false)
+                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterCreatedAt,
+                                    @RequestParam(value = "afterId", required = false) Long afterId,
+                                    Model model) {
         Doctor doctor = doctorService.getDoctorById(id)
                 .orElseThrow(() -> new RuntimeException("Doctor not found"));
 
+        Slice<ReviewView> reviews = reviewService.getReviewsForDoctor(doctor, afterCreatedAt, afterId, PAGE_SIZE);
+
         model.addAttribute("doctor", doctor);
+        model.addAttribute("reviews", reviews.getContent());
+        model.addAttribute("hasMoreReviews", reviews.hasNext());
+        if (reviews.hasNext()) {
+            ReviewView last = reviews.getContent().get(reviews.getNumberOfElements() - 1);
+            model.addAttribute("nextCreatedAt", last.createdAt());
+            model.addAttribute("nextId", last.id());
+        }
         return "patient/doctor-profile";
     }
 
     @GetMapping("/profile")
-    public String profile(Authentication authentication, Model model) {
-        User user = userService.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        Patient patient = patientService.getPatientByUserId(user.getId())
+    public String profile(CurrentPatient currentPatient, Model model) {
+        Patient patient = patientService.getPatientWithUser(currentPatient.patientId())
                 .orElseThrow(() -> new RuntimeException("Patient not found"));
 
-        model.addAttribute("user", user);
+        model.addAttribute("user", patient.getUser());
         model.addAttribute("patient", patient);
 
         return "patient/profile";
     }
 
     @PostMapping("/profile/update-email")
-    public String updateEmail(Authentication authentication,
+    public String updateEmail(CurrentPatient currentPatient,
                              @RequestParam("email") String newEmail,
                              RedirectAttributes redirectAttributes) {
-        User user = userService.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        userService.updateEmail(user.getId(), newEmail);
+        userService.updateEmail(currentPatient.userId(), newEmail);
         redirectAttributes.addFlashAttribute("success", "Email updated successfully");
 
         return "redirect:/patient/profile";
     }
 
     @PostMapping("/profile/change-password")
-    public String changePassword(Authentication authentication,
+    public String changePassword(CurrentPatient currentPatient,
                                  @RequestParam("newPassword") String newPassword,
                                  @RequestParam("confirmPassword") String confirmPassword,
                                  RedirectAttributes redirectAttributes) {
@@ -119,21 +156,15 @@ public class PatientController {
             return "redirect:/patient/profile";
         }
 
-        User user = userService.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        userService.updatePassword(user.getId(), newPassword);
+        userService.updatePassword(currentPatient.userId(), newPassword);
         redirectAttributes.addFlashAttribute("success", "Password changed successfully");
 
         return "redirect:/patient/profile";
     }
 
     @PostMapping("/profile/delete-account")
-    public String deleteAccount(Authentication authentication) {
-        User user = userService.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        userService.deleteUser(user.getId());
+    public String deleteAccount(CurrentPatient currentPatient) {
+        userService.deleteUser(currentPatient.userId());
 
         return "redirect:/logout";
     }
@@ -1,8 +1,8 @@
 package com.mywelly.controller;
 
 import com.mywelly.model.*;
+import com.mywelly.security.CurrentPatient;
 import com.mywelly.service.*;
-import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -12,16 +12,13 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 @RequestMapping("/review")
 public class ReviewController {
 
-    private final UserService userService;
     private final PatientService patientService;
     private final DoctorService doctorService;
     private final ReviewService reviewService;
 
-    public ReviewController(UserService userService,
-                           PatientService patientService,
+    public ReviewController(PatientService patientService,
                            DoctorService doctorService,
                            ReviewService reviewService) {
-        this.userService = userService;
         this.patientService = patientService;
         this.doctorService = doctorService;
         this.reviewService = reviewService;
@@ -40,14 +37,10 @@ public class ReviewController {
     public String submitReview(@PathVariable Long doctorId,
                               @RequestParam("rating") Integer rating,
                               @RequestParam("comment") String comment,
-                              Authentication authentication,
+                              CurrentPatient currentPatient,
                               RedirectAttributes redirectAttributes) {
         try {
-            User user = userService.findByEmail(authentication.getName())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
-            Patient patient = patientService.getPatientByUserId(user.getId())
-                    .orElseThrow(() -> new RuntimeException("Patient not found"));
+            Patient patient = patientService.getPatientReference(currentPatient.patientId());
 
             Doctor doctor = doctorService.getDoctorById(doctorId)
                     .orElseThrow(() -> new RuntimeException("Doctor not found"));
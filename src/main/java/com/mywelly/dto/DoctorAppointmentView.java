@@ -0,0 +1,12 @@
+package com.mywelly.dto;
+
+import com.mywelly.model.Appointment.AppointmentStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Appointment row on the doctor dashboard; the counterparty is the patient
+public record DoctorAppointmentView(Long id, LocalDate appointmentDate, String appointmentTime,
+                                    LocalDateTime startsAt, AppointmentStatus status,
+                                    String patientName, String patientPhone) {
+}
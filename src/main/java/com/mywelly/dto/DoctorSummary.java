@@ -0,0 +1,14 @@
+package com.mywelly.dto;
+
+import com.mywelly.model.Doctor;
+
+// Columns shown on a search result card
+public record DoctorSummary(Long id, String name, String specialty, String location,
+                            Double consultationFee, Double averageRating, Integer totalReviews) {
+
+    public static DoctorSummary from(Doctor doctor) {
+        return new DoctorSummary(doctor.getId(), doctor.getName(), doctor.getSpecialty(),
+                doctor.getLocation(), doctor.getConsultationFee(),
+                doctor.getAverageRating(), doctor.getTotalReviews());
+    }
+}
@@ -0,0 +1,13 @@
+package com.mywelly.dto;
+
+import com.mywelly.model.Appointment.AppointmentStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Appointment row on the patient dashboard; the counterparty is the doctor
+public record PatientAppointmentView(Long id, LocalDate appointmentDate, String appointmentTime,
+                                     LocalDateTime startsAt, AppointmentStatus status,
+                                     Long doctorId, String doctorName, String doctorSpecialty,
+                                     String doctorLocation, Double doctorFee) {
+}
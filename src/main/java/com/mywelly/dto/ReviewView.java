@@ -0,0 +1,7 @@
+package com.mywelly.dto;
+
+import java.time.LocalDateTime;
+
+public record ReviewView(Long id, Integer rating, String comment, LocalDateTime createdAt,
+                         String patientName) {
+}
@@ -9,7 +9,14 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "appointments")
+@Table(name = "appointments",
+       uniqueConstraints = @UniqueConstraint(name = "uk_appointments_active_slot",
+               columnNames = {"doctor_id", "starts_at", "active_slot"}),
+       indexes = {
+           @Index(name = "idx_appointments_status_starts_at", columnList = "status, starts_at"),
+           @Index(name = "idx_appointments_doctor_starts_status", columnList = "doctor_id, starts_at, status"),
+           @Index(name = "idx_appointments_patient_status_starts", columnList = "patient_id, status, starts_at")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -18,11 +25,11 @@ public class Appointment {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "patient_id", nullable = false)
     private Patient patient;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "doctor_id", nullable = false)
     private Doctor doctor;
 
@@ -32,6 +39,12 @@ public class Appointment {
     @Column(name = "appointment_time", nullable = false)
     private String appointmentTime;
 
+    @Column(name = "starts_at")
+    private LocalDateTime startsAt;
+
+    @Column(name = "duration_minutes")
+    private Integer durationMinutes;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private AppointmentStatus status = AppointmentStatus.SCHEDULED;
@@ -42,6 +55,20 @@ public class Appointment {
     @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    // TRUE while SCHEDULED, NULL otherwise, so the unique key only covers active bookings
+    @Column(name = "active_slot")
+    private Boolean activeSlot;
+
+    // Smallest reminder offset (minutes before start) already sent; NULL until the first reminder
+    @Column(name = "last_reminder_minutes")
+    private Integer lastReminderMinutes;
+
+    @PrePersist
+    @PreUpdate
+    void syncActiveSlot() {
+        activeSlot = status == AppointmentStatus.SCHEDULED ? Boolean.TRUE : null;
+    }
+
     public enum AppointmentStatus {
         SCHEDULED,
         COMPLETED,
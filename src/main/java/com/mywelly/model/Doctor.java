@@ -2,12 +2,21 @@ package com.mywelly.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 @Entity
-@Table(name = "doctors")
+@Table(name = "doctors", indexes = {
+    @Index(name = "idx_doctors_specialty_rating", columnList = "specialty, average_rating"),
+    @Index(name = "idx_doctors_location_rating", columnList = "location, average_rating"),
+    @Index(name = "idx_doctors_rating_id", columnList = "average_rating, id"),
+    @Index(name = "idx_doctors_fee", columnList = "consultation_fee")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -16,7 +25,7 @@ public class Doctor {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
@@ -49,4 +58,8 @@ public class Doctor {
 
     @Column(name = "total_reviews")
     private Integer totalReviews = 0;
+
+    // Running sum of all ratings; averageRating is derived from ratingSum / totalReviews
+    @Column(name = "rating_sum")
+    private Long ratingSum = 0L;
 }
@@ -2,12 +2,19 @@ package com.mywelly.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 @Entity
-@Table(name = "laboratories")
+@Table(name = "laboratories", indexes = {
+    @Index(name = "idx_laboratories_location_rating", columnList = "location, average_rating"),
+    @Index(name = "idx_laboratories_rating_id", columnList = "average_rating, id")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -16,7 +23,7 @@ public class Laboratory {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
@@ -39,4 +46,8 @@ public class Laboratory {
 
     @Column(name = "total_reviews")
     private Integer totalReviews = 0;
+
+    // Running sum of all ratings; averageRating is derived from ratingSum / totalReviews
+    @Column(name = "rating_sum")
+    private Long ratingSum = 0L;
 }
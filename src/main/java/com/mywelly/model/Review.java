@@ -10,7 +10,11 @@ import lombok.AllArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reviews")
+@Table(name = "reviews", indexes = {
+    @Index(name = "idx_reviews_doctor_created", columnList = "doctor_id, created_at, id"),
+    @Index(name = "idx_reviews_lab_created", columnList = "lab_id, created_at, id"),
+    @Index(name = "idx_reviews_patient", columnList = "patient_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -19,15 +23,15 @@ public class Review {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "patient_id", nullable = false)
     private Patient patient;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "doctor_id")
     private Doctor doctor;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "lab_id")
     private Laboratory laboratory;
 
@@ -0,0 +1,64 @@
+package com.mywelly.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Opens the per-request statement statistics, publishes them and reports handlers over their statement budget
+@Component
+public class QueryStatisticsFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryStatisticsFilter.class);
+
+    private final MeterRegistry meterRegistry;
+
+    public QueryStatisticsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        RequestQueryStatistics statistics = RequestQueryStatistics.begin(
+                request.getMethod() + " " + request.getRequestURI());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestQueryStatistics.end();
+        }
+
+        // Only mapped handlers are tagged, which keeps the uri tag bounded
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern != null) {
+            DistributionSummary.builder("mywelly.http.sql.statements")
+                    .tag("method", request.getMethod())
+                    .tag("uri", pattern.toString())
+                    .register(meterRegistry)
+                    .record(statistics.getStatementCount());
+            Timer.builder("mywelly.http.sql.time")
+                    .tag("method", request.getMethod())
+                    .tag("uri", pattern.toString())
+                    .register(meterRegistry)
+                    .record(statistics.getElapsedMillis(), TimeUnit.MILLISECONDS);
+        }
+        log.debug("{} issued {} statements in {} ms",
+                statistics.getRequest(), statistics.getStatementCount(), statistics.getElapsedMillis());
+
+        // Enforcement (mywelly.sql.budget.enforce) is up to StatementBudgetInterceptor, while the response is still open
+        if (statistics.isOverBudget()) {
+            log.warn(statistics.overBudgetMessage());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.mywelly.monitoring;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+// Counts statements against the current request and logs the slow ones; bound values are never logged
+public class QueryStatisticsListener implements QueryExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryStatisticsListener.class);
+
+    private final long slowThresholdMillis;
+
+    public QueryStatisticsListener(long slowThresholdMillis) {
+        this.slowThresholdMillis = slowThresholdMillis;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        RequestQueryStatistics statistics = RequestQueryStatistics.current();
+        if (statistics != null) {
+            statistics.record(execInfo.getElapsedTime());
+        }
+
+        if (execInfo.getElapsedTime() >= slowThresholdMillis) {
+            String source = statistics != null ? statistics.getRequest() : Thread.currentThread().getName();
+            for (QueryInfo query : queryInfoList) {
+                int parameterSets = query.getParametersList().size();
+                int parameters = parameterSets > 0 ? query.getParametersList().get(0).size() : 0;
+                log.warn("Slow query ({} ms, {} parameters redacted{}) from {}: {}",
+                        execInfo.getElapsedTime(), parameters,
+                        execInfo.isBatch() ? ", batch of " + parameterSets : "",
+                        source, query.getQuery());
+            }
+        }
+    }
+}
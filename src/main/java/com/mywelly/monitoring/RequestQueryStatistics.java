@@ -0,0 +1,79 @@
+package com.mywelly.monitoring;
+
+import java.util.function.Supplier;
+
+// Statements issued on the current request thread; absent outside HTTP requests
+public class RequestQueryStatistics {
+
+    private static final ThreadLocal<RequestQueryStatistics> CURRENT = new ThreadLocal<>();
+
+    private final String request;
+    private int statementCount;
+    private long elapsedMillis;
+    private int budget;
+
+    private RequestQueryStatistics(String request) {
+        this.request = request;
+    }
+
+    static RequestQueryStatistics begin(String request) {
+        RequestQueryStatistics statistics = new RequestQueryStatistics(request);
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    public static RequestQueryStatistics current() {
+        return CURRENT.get();
+    }
+
+    // For infrastructure statements that happen to run inside a request (e.g. session store reads and writes),
+    // so they neither count against the handler's budget nor vary its statistics
+    public static <T> T excluding(Supplier<T> work) {
+        RequestQueryStatistics statistics = CURRENT.get();
+        CURRENT.remove();
+        try {
+            return work.get();
+        } finally {
+            if (statistics != null) {
+                CURRENT.set(statistics);
+            }
+        }
+    }
+
+    void record(long millis) {
+        statementCount++;
+        elapsedMillis += millis;
+    }
+
+    public String getRequest() {
+        return request;
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    void setBudget(int budget) {
+        this.budget = budget;
+    }
+
+    boolean isOverBudget() {
+        return budget > 0 && statementCount > budget;
+    }
+
+    String overBudgetMessage() {
+        return request + " issued " + statementCount + " statements, over its budget of " + budget;
+    }
+}
@@ -0,0 +1,14 @@
+package com.mywelly.monitoring;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Maximum number of SQL statements a handler may issue per request. Checked once the handler returns;
+// views cannot issue any, as nothing is left to lazy-load with open-in-view off
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface StatementBudget {
+    int value();
+}
@@ -0,0 +1,43 @@
+package com.mywelly.monitoring;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+// Hands the handler's @StatementBudget to the request statistics; method-level wins over class-level.
+// With enforce, a handler over budget fails in postHandle, before the view renders and the response is committed.
+public class StatementBudgetInterceptor implements HandlerInterceptor {
+
+    private final boolean enforce;
+
+    public StatementBudgetInterceptor(boolean enforce) {
+        this.enforce = enforce;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestQueryStatistics statistics = RequestQueryStatistics.current();
+        if (statistics != null && handler instanceof HandlerMethod method) {
+            StatementBudget budget = method.getMethodAnnotation(StatementBudget.class);
+            if (budget == null) {
+                budget = AnnotatedElementUtils.findMergedAnnotation(method.getBeanType(), StatementBudget.class);
+            }
+            if (budget != null) {
+                statistics.setBudget(budget.value());
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        RequestQueryStatistics statistics = RequestQueryStatistics.current();
+        if (enforce && statistics != null && statistics.isOverBudget()) {
+            throw new RuntimeException(statistics.overBudgetMessage());
+        }
+    }
+}
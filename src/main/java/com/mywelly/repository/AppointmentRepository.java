@@ -1,35 +1,123 @@
 package com.mywelly.repository;
 
+import com.mywelly.dto.DoctorAppointmentView;
+import com.mywelly.dto.PatientAppointmentView;
 import com.mywelly.model.Appointment;
 import com.mywelly.model.Appointment.AppointmentStatus;
 import com.mywelly.model.Doctor;
 import com.mywelly.model.Patient;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDate;
+import jakarta.persistence.LockModeType;
+
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
-    List<Appointment> findByPatientAndStatusOrderByAppointmentDateAscAppointmentTimeAsc(
-        Patient patient, AppointmentStatus status);
+    // Dashboard rows are read as projections so no entities enter the persistence context
+    @Query("SELECT new com.mywelly.dto.PatientAppointmentView(a.id, a.appointmentDate, a.appointmentTime, " +
+           "a.startsAt, a.status, d.id, d.name, d.specialty, d.location, d.consultationFee) " +
+           "FROM Appointment a JOIN a.doctor d WHERE a.patient = :patient AND a.status = :status " +
+           "ORDER BY a.startsAt ASC")
+    List<PatientAppointmentView> findByPatientAndStatusOrderByStartsAtAsc(@Param("patient") Patient patient,
+                                                                          @Param("status") AppointmentStatus status);
+
+    @Query("SELECT new com.mywelly.dto.PatientAppointmentView(a.id, a.appointmentDate, a.appointmentTime, " +
+           "a.startsAt, a.status, d.id, d.name, d.specialty, d.location, d.consultationFee) " +
+           "FROM Appointment a JOIN a.doctor d WHERE a.patient = :patient AND a.status IN :statuses AND " +
+           "(:afterStartsAt IS NULL OR a.startsAt < :afterStartsAt OR " +
+           "(a.startsAt = :afterStartsAt AND a.id < :afterId)) " +
+           "ORDER BY a.startsAt DESC, a.id DESC")
+    Slice<PatientAppointmentView> findPastAppointmentsForPatient(@Param("patient") Patient patient,
+                                                                 @Param("statuses") List<AppointmentStatus> statuses,
+                                                                 @Param("afterStartsAt") LocalDateTime afterStartsAt,
+                                                                 @Param("afterId") Long afterId,
+                                                                 Pageable pageable);
+
+    @Query("SELECT new com.mywelly.dto.DoctorAppointmentView(a.id, a.appointmentDate, a.appointmentTime, " +
+           "a.startsAt, a.status, p.fullName, p.phoneNumber) " +
+           "FROM Appointment a JOIN a.patient p WHERE a.doctor = :doctor AND a.startsAt >= :from " +
+           "AND a.status = :status ORDER BY a.startsAt ASC")
+    List<DoctorAppointmentView> findByDoctorAndStartsAtGreaterThanEqualAndStatusOrderByStartsAtAsc(
+        @Param("doctor") Doctor doctor, @Param("from") LocalDateTime from, @Param("status") AppointmentStatus status);
+
+    @Query("SELECT new com.mywelly.dto.DoctorAppointmentView(a.id, a.appointmentDate, a.appointmentTime, " +
+           "a.startsAt, a.status, p.fullName, p.phoneNumber) " +
+           "FROM Appointment a JOIN a.patient p WHERE a.doctor = :doctor AND a.startsAt >= :from " +
+           "AND a.startsAt < :to ORDER BY a.startsAt ASC")
+    List<DoctorAppointmentView> findDoctorAppointmentsBetween(@Param("doctor") Doctor doctor,
+                                                              @Param("from") LocalDateTime from,
+                                                              @Param("to") LocalDateTime to);
+
+    // Locks the rows that can still become NO_SHOW, so concurrent close-outs cannot count them twice.
+    // COMPLETED is eligible because the completion job closes every elapsed booking as attended.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a.id FROM Appointment a WHERE a.id IN :ids AND a.doctor.id = :doctorId " +
+           "AND a.status IN ('SCHEDULED', 'COMPLETED') AND a.startsAt < :now")
+    List<Long> lockNoShowCandidates(@Param("doctorId") Long doctorId,
+                                    @Param("ids") Collection<Long> ids,
+                                    @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Appointment a SET a.status = 'NO_SHOW', a.activeSlot = NULL WHERE a.id IN :ids")
+    int markNoShow(@Param("ids") List<Long> ids);
+
+    List<Appointment> findByDoctorAndStartsAtAndStatus(
+        Doctor doctor, LocalDateTime startsAt, AppointmentStatus status);
+
+    @Query("SELECT a.id FROM Appointment a WHERE a.status = 'SCHEDULED' AND a.startsAt < :threshold " +
+           "ORDER BY a.startsAt")
+    List<Long> findOverdueIds(@Param("threshold") LocalDateTime threshold, Pageable pageable);
+
+    @Query("SELECT COUNT(a) FROM Appointment a WHERE a.status = 'SCHEDULED' AND a.startsAt < :threshold")
+    long countOverdue(@Param("threshold") LocalDateTime threshold);
+
+    @Modifying
+    @Query("UPDATE Appointment a SET a.status = 'COMPLETED', a.activeSlot = NULL " +
+           "WHERE a.id IN :ids AND a.status = 'SCHEDULED'")
+    int markCompleted(@Param("ids") List<Long> ids);
+
+    @Query("SELECT a.doctor.id, a.startsAt FROM Appointment a " +
+           "WHERE a.status = :status AND a.startsAt >= :from")
+    List<Object[]> findBookedSlotsFrom(@Param("status") AppointmentStatus status,
+                                       @Param("from") LocalDateTime from);
+
+    @Modifying
+    @Query("UPDATE Appointment a SET a.activeSlot = true " +
+           "WHERE a.status = 'SCHEDULED' AND a.activeSlot IS NULL AND a.startsAt >= :from")
+    int activateScheduledSlots(@Param("from") LocalDateTime from);
 
-    List<Appointment> findByPatientAndStatusInOrderByAppointmentDateDescAppointmentTimeDesc(
-        Patient patient, List<AppointmentStatus> statuses);
+    @Query("SELECT a.id, a.startsAt, a.lastReminderMinutes FROM Appointment a " +
+           "WHERE a.status = 'SCHEDULED' AND a.startsAt > :from AND a.id > :afterId ORDER BY a.id")
+    List<Object[]> findPendingReminders(@Param("from") LocalDateTime from,
+                                        @Param("afterId") Long afterId,
+                                        Pageable pageable);
 
-    List<Appointment> findByDoctorAndStatusOrderByAppointmentDateAscAppointmentTimeAsc(
-        Doctor doctor, AppointmentStatus status);
+    // Claims a reminder: succeeds once per offset, and never for appointments that are no longer scheduled
+    @Modifying
+    @Query("UPDATE Appointment a SET a.lastReminderMinutes = :minutes " +
+           "WHERE a.id = :id AND a.status = 'SCHEDULED' " +
+           "AND (a.lastReminderMinutes IS NULL OR a.lastReminderMinutes > :minutes)")
+    int markReminderSent(@Param("id") Long id, @Param("minutes") Integer minutes);
 
-    List<Appointment> findByDoctorAndAppointmentDateAndAppointmentTimeAndStatus(
-        Doctor doctor, LocalDate date, String time, AppointmentStatus status);
+    @Query("SELECT a.id, a.appointmentDate, a.appointmentTime FROM Appointment a WHERE a.startsAt IS NULL")
+    List<Object[]> findWithoutStartsAt(Pageable pageable);
 
-    @Query("SELECT a FROM Appointment a WHERE a.status = 'SCHEDULED' AND " +
-           "CONCAT(a.appointmentDate, ' ', a.appointmentTime) < :threshold")
-    List<Appointment> findCompletedAppointments(@Param("threshold") String threshold);
+    @Modifying
+    @Query("UPDATE Appointment a SET a.startsAt = :startsAt, a.durationMinutes = :durationMinutes " +
+           "WHERE a.id = :id AND a.startsAt IS NULL")
+    int backfillStartsAt(@Param("id") Long id,
+                         @Param("startsAt") LocalDateTime startsAt,
+                         @Param("durationMinutes") Integer durationMinutes);
 
     Long countByPatientAndStatus(Patient patient, AppointmentStatus status);
 }
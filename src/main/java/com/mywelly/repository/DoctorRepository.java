@@ -1,12 +1,19 @@
 package com.mywelly.repository;
 
+import com.mywelly.dto.DoctorSummary;
 import com.mywelly.model.Doctor;
 import com.mywelly.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
 import java.util.List;
 import java.util.Optional;
 
@@ -14,26 +21,59 @@ import java.util.Optional;
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
     Optional<Doctor> findByUser(User user);
     Optional<Doctor> findByUserId(Long userId);
+
+    // For views that show the account email, which are rendered after the session is closed
+    @Query("SELECT d FROM Doctor d JOIN FETCH d.user WHERE d.id = :id")
+    Optional<Doctor> findWithUserById(@Param("id") Long id);
+
+    @Query("SELECT d.id FROM Doctor d WHERE d.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
     List<Doctor> findBySpecialty(String specialty);
     List<Doctor> findByLocation(String location);
     List<Doctor> findByNameContainingIgnoreCase(String name);
 
-    @Query("SELECT d FROM Doctor d WHERE " +
+    @Query("SELECT new com.mywelly.dto.DoctorSummary(d.id, d.name, d.specialty, d.location, " +
+           "d.consultationFee, d.averageRating, d.totalReviews) FROM Doctor d WHERE " +
            "(:name IS NULL OR LOWER(d.name) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
            "(:specialty IS NULL OR d.specialty = :specialty) AND " +
            "(:location IS NULL OR d.location = :location) AND " +
            "(:minPrice IS NULL OR d.consultationFee >= :minPrice) AND " +
-           "(:maxPrice IS NULL OR d.consultationFee <= :maxPrice) " +
-           "ORDER BY d.averageRating DESC")
-    List<Doctor> searchDoctors(@Param("name") String name,
-                               @Param("specialty") String specialty,
-                               @Param("location") String location,
-                               @Param("minPrice") Double minPrice,
-                               @Param("maxPrice") Double maxPrice);
+           "(:maxPrice IS NULL OR d.consultationFee <= :maxPrice) AND " +
+           "(:afterRating IS NULL OR d.averageRating < :afterRating OR " +
+           "(d.averageRating = :afterRating AND d.id > :afterId)) " +
+           "ORDER BY d.averageRating DESC, d.id ASC")
+    Slice<DoctorSummary> searchDoctors(@Param("name") String name,
+                                       @Param("specialty") String specialty,
+                                       @Param("location") String location,
+                                       @Param("minPrice") Double minPrice,
+                                       @Param("maxPrice") Double maxPrice,
+                                       @Param("afterRating") Double afterRating,
+                                       @Param("afterId") Long afterId,
+                                       Pageable pageable);
+
+    // averageRating is assigned first so it reads the pre-update sum and count on every dialect
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Doctor d SET " +
+           "d.averageRating = ROUND((COALESCE(d.ratingSum, 0) + :rating) * 1.0 / (COALESCE(d.totalReviews, 0) + 1), 1), " +
+           "d.ratingSum = COALESCE(d.ratingSum, 0) + :rating, " +
+           "d.totalReviews = COALESCE(d.totalReviews, 0) + 1 " +
+           "WHERE d.id = :doctorId")
+    int addRating(@Param("doctorId") Long doctorId, @Param("rating") long rating);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Doctor d SET " +
+           "d.averageRating = COALESCE((SELECT ROUND(SUM(r.rating) * 1.0 / COUNT(r), 1) FROM Review r WHERE r.doctor = d), 0.0), " +
+           "d.ratingSum = COALESCE((SELECT SUM(r.rating) FROM Review r WHERE r.doctor = d), 0), " +
+           "d.totalReviews = (SELECT COUNT(r) FROM Review r WHERE r.doctor = d)")
+    int reconcileRatings();
 
+    // Query-cached; any write to doctors invalidates the cached lists
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     @Query("SELECT DISTINCT d.specialty FROM Doctor d ORDER BY d.specialty")
     List<String> findAllSpecialties();
 
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     @Query("SELECT DISTINCT d.location FROM Doctor d ORDER BY d.location")
     List<String> findAllLocations();
 }
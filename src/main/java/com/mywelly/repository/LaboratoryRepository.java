@@ -2,7 +2,10 @@ package com.mywelly.repository;
 
 import com.mywelly.model.Laboratory;
 import com.mywelly.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,13 +17,41 @@ import java.util.Optional;
 public interface LaboratoryRepository extends JpaRepository<Laboratory, Long> {
     Optional<Laboratory> findByUser(User user);
     Optional<Laboratory> findByUserId(Long userId);
+
+    @Query("SELECT l FROM Laboratory l JOIN FETCH l.user WHERE l.id = :id")
+    Optional<Laboratory> findWithUserById(@Param("id") Long id);
+
+    @Query("SELECT l.id FROM Laboratory l WHERE l.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
     List<Laboratory> findByLocation(String location);
     List<Laboratory> findByLabNameContainingIgnoreCase(String name);
 
     @Query("SELECT l FROM Laboratory l WHERE " +
            "(:name IS NULL OR LOWER(l.labName) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
-           "(:location IS NULL OR l.location = :location) " +
-           "ORDER BY l.averageRating DESC")
-    List<Laboratory> searchLaboratories(@Param("name") String name,
-                                        @Param("location") String location);
+           "(:location IS NULL OR l.location = :location) AND " +
+           "(:afterRating IS NULL OR l.averageRating < :afterRating OR " +
+           "(l.averageRating = :afterRating AND l.id > :afterId)) " +
+           "ORDER BY l.averageRating DESC, l.id ASC")
+    Slice<Laboratory> searchLaboratories(@Param("name") String name,
+                                         @Param("location") String location,
+                                         @Param("afterRating") Double afterRating,
+                                         @Param("afterId") Long afterId,
+                                         Pageable pageable);
+
+    // averageRating is assigned first so it reads the pre-update sum and count on every dialect
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Laboratory l SET " +
+           "l.averageRating = ROUND((COALESCE(l.ratingSum, 0) + :rating) * 1.0 / (COALESCE(l.totalReviews, 0) + 1), 1), " +
+           "l.ratingSum = COALESCE(l.ratingSum, 0) + :rating, " +
+           "l.totalReviews = COALESCE(l.totalReviews, 0) + 1 " +
+           "WHERE l.id = :labId")
+    int addRating(@Param("labId") Long labId, @Param("rating") long rating);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Laboratory l SET " +
+           "l.averageRating = COALESCE((SELECT ROUND(SUM(r.rating) * 1.0 / COUNT(r), 1) FROM Review r WHERE r.laboratory = l), 0.0), " +
+           "l.ratingSum = COALESCE((SELECT SUM(r.rating) FROM Review r WHERE r.laboratory = l), 0), " +
+           "l.totalReviews = (SELECT COUNT(r) FROM Review r WHERE r.laboratory = l)")
+    int reconcileRatings();
 }
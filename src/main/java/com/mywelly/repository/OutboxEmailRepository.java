@@ -0,0 +1,45 @@
+package com.mywelly.repository;
+
+import com.mywelly.model.OutboxEmail;
+import com.mywelly.model.OutboxEmail.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Long> {
+    // SENDING rows are only due again once their claim has run out (the dispatcher holding them died)
+    @Query("SELECT e.id FROM OutboxEmail e WHERE e.status IN ('PENDING', 'SENDING') AND e.nextAttemptAt <= :now " +
+           "ORDER BY e.nextAttemptAt, e.id")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Re-checks the due condition, so of two dispatchers that selected the same rows only one claims each
+    @Modifying
+    @Query("UPDATE OutboxEmail e SET e.status = 'SENDING', e.claimedBy = :claimedBy, e.nextAttemptAt = :claimedUntil " +
+           "WHERE e.id IN :ids AND e.status IN ('PENDING', 'SENDING') AND e.nextAttemptAt <= :now")
+    int claim(@Param("ids") List<Long> ids, @Param("claimedBy") String claimedBy,
+              @Param("claimedUntil") LocalDateTime claimedUntil, @Param("now") LocalDateTime now);
+
+    List<OutboxEmail> findByIdInAndClaimedBy(List<Long> ids, String claimedBy);
+
+    @Modifying
+    @Query("UPDATE OutboxEmail e SET e.status = 'SENT', e.sentAt = :sentAt, e.lastError = NULL, e.claimedBy = NULL " +
+           "WHERE e.id = :id AND e.status = 'SENDING' AND e.claimedBy = :claimedBy")
+    int markSent(@Param("id") Long id, @Param("claimedBy") String claimedBy, @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Query("UPDATE OutboxEmail e SET e.status = :status, e.attempts = :attempts, e.lastError = :lastError, " +
+           "e.nextAttemptAt = :nextAttemptAt, e.claimedBy = NULL " +
+           "WHERE e.id = :id AND e.status = 'SENDING' AND e.claimedBy = :claimedBy")
+    int markFailed(@Param("id") Long id, @Param("claimedBy") String claimedBy, @Param("status") OutboxStatus status,
+                   @Param("attempts") int attempts, @Param("lastError") String lastError,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    long countByStatus(OutboxStatus status);
+}
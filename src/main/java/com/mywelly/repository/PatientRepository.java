@@ -3,13 +3,54 @@ package com.mywelly.repository;
 import com.mywelly.model.Patient;
 import com.mywelly.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, Long> {
     Optional<Patient> findByUser(User user);
     Optional<Patient> findByUserId(Long userId);
+
+    @Query("SELECT p FROM Patient p JOIN FETCH p.user WHERE p.id = :id")
+    Optional<Patient> findWithUserById(@Param("id") Long id);
+
+    @Query("SELECT p.id FROM Patient p WHERE p.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT u.email FROM Patient p JOIN p.user u WHERE p.id = :id")
+    Optional<String> findEmailById(@Param("id") Long id);
+
     boolean existsByUsername(String username);
+
+    // isBlocked is assigned first so it reads the pre-update count on every dialect
+    @Modifying
+    @Query("UPDATE Patient p SET " +
+           "p.isBlocked = CASE WHEN COALESCE(p.noShowCount, 0) + " +
+           "(SELECT COUNT(a) FROM Appointment a WHERE a.patient = p AND a.id IN :appointmentIds) >= :threshold " +
+           "THEN true ELSE p.isBlocked END, " +
+           "p.noShowCount = COALESCE(p.noShowCount, 0) + CAST(" +
+           "(SELECT COUNT(a) FROM Appointment a WHERE a.patient = p AND a.id IN :appointmentIds) AS Integer) " +
+           "WHERE p.id IN (SELECT a.patient.id FROM Appointment a WHERE a.id IN :appointmentIds)")
+    int recordNoShows(@Param("appointmentIds") List<Long> appointmentIds, @Param("threshold") long threshold);
+
+    @Modifying
+    @Query("UPDATE Patient p SET " +
+           "p.isBlocked = CASE WHEN COALESCE(p.noShowCount, 0) + 1 >= :threshold THEN true ELSE p.isBlocked END, " +
+           "p.noShowCount = COALESCE(p.noShowCount, 0) + 1 " +
+           "WHERE p.id = :id")
+    int incrementNoShowCount(@Param("id") Long id, @Param("threshold") long threshold);
+
+    // Recomputes counters from the appointments table; blocks are never lifted here
+    @Modifying
+    @Query("UPDATE Patient p SET " +
+           "p.isBlocked = CASE WHEN (SELECT COUNT(a) FROM Appointment a " +
+           "WHERE a.patient = p AND a.status = 'NO_SHOW') >= :threshold THEN true ELSE p.isBlocked END, " +
+           "p.noShowCount = CAST((SELECT COUNT(a) FROM Appointment a " +
+           "WHERE a.patient = p AND a.status = 'NO_SHOW') AS Integer)")
+    int reconcileNoShows(@Param("threshold") long threshold);
 }
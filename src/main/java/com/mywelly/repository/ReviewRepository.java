@@ -1,26 +1,41 @@
 package com.mywelly.repository;
 
+import com.mywelly.dto.ReviewView;
 import com.mywelly.model.Review;
 import com.mywelly.model.Doctor;
 import com.mywelly.model.Laboratory;
 import com.mywelly.model.Patient;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
+import java.time.LocalDateTime;
 
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Long> {
-    List<Review> findByDoctorOrderByCreatedAtDesc(Doctor doctor);
-    List<Review> findByLaboratoryOrderByCreatedAtDesc(Laboratory laboratory);
+    // Review lists only need the author's name, read straight into a projection
+    @Query("SELECT new com.mywelly.dto.ReviewView(r.id, r.rating, r.comment, r.createdAt, p.fullName) " +
+           "FROM Review r JOIN r.patient p WHERE r.doctor = :doctor AND " +
+           "(:afterCreatedAt IS NULL OR r.createdAt < :afterCreatedAt OR " +
+           "(r.createdAt = :afterCreatedAt AND r.id < :afterId)) " +
+           "ORDER BY r.createdAt DESC, r.id DESC")
+    Slice<ReviewView> findByDoctorOrderByCreatedAtDesc(@Param("doctor") Doctor doctor,
+                                                           @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                                           @Param("afterId") Long afterId,
+                                                           Pageable pageable);
 
-    @Query("SELECT AVG(r.rating) FROM Review r WHERE r.doctor.id = :doctorId")
-    Double calculateAverageRatingForDoctor(@Param("doctorId") Long doctorId);
-
-    @Query("SELECT AVG(r.rating) FROM Review r WHERE r.laboratory.id = :labId")
-    Double calculateAverageRatingForLab(@Param("labId") Long labId);
+    @Query("SELECT new com.mywelly.dto.ReviewView(r.id, r.rating, r.comment, r.createdAt, p.fullName) " +
+           "FROM Review r JOIN r.patient p WHERE r.laboratory = :laboratory AND " +
+           "(:afterCreatedAt IS NULL OR r.createdAt < :afterCreatedAt OR " +
+           "(r.createdAt = :afterCreatedAt AND r.id < :afterId)) " +
+           "ORDER BY r.createdAt DESC, r.id DESC")
+    Slice<ReviewView> findByLaboratoryOrderByCreatedAtDesc(@Param("laboratory") Laboratory laboratory,
+                                                               @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                                               @Param("afterId") Long afterId,
+                                                               Pageable pageable);
 
     Long countByDoctor(Doctor doctor);
     Long countByLaboratory(Laboratory laboratory);
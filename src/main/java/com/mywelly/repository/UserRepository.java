@@ -2,12 +2,34 @@ package com.mywelly.repository;
 
 import com.mywelly.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    // Empty when the account is gone or locked
+    @Query("SELECT u.password FROM User u WHERE u.email = :email AND u.accountLocked = false")
+    Optional<String> findUnlockedPasswordByEmail(@Param("email") String email);
+
+    @Modifying
+    @Query("UPDATE User u SET u.failedLoginAttempts = 0 WHERE u.email IN :emails AND u.failedLoginAttempts <> 0")
+    int resetFailedLoginAttempts(@Param("emails") Collection<String> emails);
+
+    // accountLocked is assigned first so it reads the pre-update count on every dialect
+    @Modifying
+    @Query("UPDATE User u SET " +
+           "u.accountLocked = CASE WHEN COALESCE(u.failedLoginAttempts, 0) + :failures >= :threshold " +
+           "THEN true ELSE u.accountLocked END, " +
+           "u.failedLoginAttempts = COALESCE(u.failedLoginAttempts, 0) + :failures " +
+           "WHERE u.email IN :emails")
+    int addFailedLoginAttempts(@Param("emails") Collection<String> emails, @Param("failures") int failures,
+                               @Param("threshold") int threshold);
 }
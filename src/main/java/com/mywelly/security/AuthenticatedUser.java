@@ -0,0 +1,38 @@
+package com.mywelly.security;
+
+import com.mywelly.model.User.UserRole;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collections;
+
+// Principal stored in the session; carries the ids controllers need so they skip the user lookup
+public class AuthenticatedUser extends User {
+
+    // Sessions are shared across nodes and restarts; keep this stable so they survive redeploys
+    private static final long serialVersionUID = 1L;
+
+    private final Long userId;
+    private final UserRole role;
+    private final Long profileId;
+
+    public AuthenticatedUser(Long userId, String email, String password, UserRole role, Long profileId) {
+        super(email, password, Collections.singletonList(new SimpleGrantedAuthority(role.name())));
+        this.userId = userId;
+        this.role = role;
+        this.profileId = profileId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public UserRole getRole() {
+        return role;
+    }
+
+    // Patient, doctor or laboratory id, depending on the role
+    public Long getProfileId() {
+        return profileId;
+    }
+}
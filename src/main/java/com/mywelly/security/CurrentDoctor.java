@@ -0,0 +1,4 @@
+package com.mywelly.security;
+
+public record CurrentDoctor(Long userId, Long doctorId) {
+}
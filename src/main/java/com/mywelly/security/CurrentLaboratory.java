@@ -0,0 +1,4 @@
+package com.mywelly.security;
+
+public record CurrentLaboratory(Long userId, Long laboratoryId) {
+}
@@ -0,0 +1,4 @@
+package com.mywelly.security;
+
+public record CurrentPatient(Long userId, Long patientId) {
+}
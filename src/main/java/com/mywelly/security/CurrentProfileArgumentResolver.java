@@ -0,0 +1,39 @@
+package com.mywelly.security;
+
+import com.mywelly.model.User.UserRole;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+// Resolves CurrentPatient/CurrentDoctor/CurrentLaboratory controller arguments from the session principal
+public class CurrentProfileArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        Class<?> type = parameter.getParameterType();
+        return type == CurrentPatient.class || type == CurrentDoctor.class || type == CurrentLaboratory.class;
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthenticatedUser user)) {
+            throw new RuntimeException("Please log in again");
+        }
+
+        Class<?> type = parameter.getParameterType();
+        if (type == CurrentPatient.class && user.getRole() == UserRole.PATIENT) {
+            return new CurrentPatient(user.getUserId(), user.getProfileId());
+        } else if (type == CurrentDoctor.class && user.getRole() == UserRole.DOCTOR) {
+            return new CurrentDoctor(user.getUserId(), user.getProfileId());
+        } else if (type == CurrentLaboratory.class && user.getRole() == UserRole.LABORATORY) {
+            return new CurrentLaboratory(user.getUserId(), user.getProfileId());
+        }
+        throw new RuntimeException(type.getSimpleName().replace("Current", "") + " not found");
+    }
+}
@@ -0,0 +1,13 @@
+package com.mywelly.security;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// The hashing queue is full; answered with 503 so clients back off instead of piling on
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException() {
+        super("Too many sign-ins in progress, please try again in a moment");
+    }
+}
@@ -0,0 +1,76 @@
+package com.mywelly.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mywelly.repository.UserRepository;
+import com.mywelly.service.UserCredentialsChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+// Login-path cache of AuthenticatedUser by email, used by DaoAuthenticationProvider. Entries are copies:
+// the provider erases the password of the principal it returns, which must not reach the cached instance.
+// Invalidation events only reach this node, so a hit is checked against the stored hash and lock flag
+// (one indexed lookup, instead of the user and profile queries of a full load); an entry whose account was
+// changed, locked or deleted elsewhere is dropped and the provider loads the user afresh.
+@Component
+public class UserDetailsCache implements UserCache {
+
+    private final Cache<String, AuthenticatedUser> cache;
+    private final UserRepository userRepository;
+
+    public UserDetailsCache(UserRepository userRepository,
+                            @Value("${mywelly.security.user-cache.ttl:5m}") Duration ttl,
+                            @Value("${mywelly.security.user-cache.maximum-size:10000}") long maximumSize,
+                            MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        this.userRepository = userRepository;
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        AuthenticatedUser user = cache.getIfPresent(username);
+        if (user == null) {
+            return null;
+        }
+        if (!userRepository.findUnlockedPasswordByEmail(username).map(user.getPassword()::equals).orElse(false)) {
+            cache.invalidate(username);
+            return null;
+        }
+        return copyOf(user);
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        if (user instanceof AuthenticatedUser authenticated && authenticated.getPassword() != null) {
+            cache.put(authenticated.getUsername(), copyOf(authenticated));
+        }
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        cache.invalidate(username);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCredentialsChanged(UserCredentialsChangedEvent event) {
+        cache.invalidateAll(event.emails());
+    }
+
+    private static AuthenticatedUser copyOf(AuthenticatedUser user) {
+        return new AuthenticatedUser(user.getUserId(), user.getUsername(), user.getPassword(),
+                user.getRole(), user.getProfileId());
+    }
+}
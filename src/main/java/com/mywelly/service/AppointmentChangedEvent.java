@@ -0,0 +1,9 @@
+package com.mywelly.service;
+
+import com.mywelly.model.Appointment.AppointmentStatus;
+
+import java.time.LocalDateTime;
+
+// Published when an appointment is booked or leaves SCHEDULED; consumed after commit
+public record AppointmentChangedEvent(Long appointmentId, LocalDateTime startsAt, AppointmentStatus status) {
+}
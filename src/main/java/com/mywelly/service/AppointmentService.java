@@ -1,109 +1,340 @@
 package com.mywelly.service;
 
+import com.mywelly.dto.DoctorAppointmentView;
+import com.mywelly.dto.PatientAppointmentView;
 import com.mywelly.model.Appointment;
 import com.mywelly.model.Appointment.AppointmentStatus;
 import com.mywelly.model.Doctor;
 import com.mywelly.model.Patient;
 import com.mywelly.repository.AppointmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
 
 @Service
 @Transactional
 public class AppointmentService {
 
+    private static final Logger log = LoggerFactory.getLogger(AppointmentService.class);
+
+    private static final int BOOKING_LOCK_STRIPES = 256;
+    private static final int COMPLETION_CHUNK_SIZE = 500;
+    private static final int BACKFILL_CHUNK_SIZE = 500;
+    private static final int NO_SHOW_CHUNK_SIZE = 500;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("H:mm");
+
     private final AppointmentRepository appointmentRepository;
     private final PatientService patientService;
+    private final SlotAvailabilityEngine slotAvailabilityEngine;
+    private final EmailOutboxService emailOutboxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate chunkTransaction;
+    private final StripedLocks bookingLocks = new StripedLocks(BOOKING_LOCK_STRIPES);
+
+    // Booking and no-show statistics
+    private final AtomicLong bookedTotal = new AtomicLong();
+    private final AtomicLong bookingConflictsTotal = new AtomicLong();
+    private final AtomicLong noShowsTotal = new AtomicLong();
+
+    // Completion job statistics
+    private final AtomicLong completedTotal = new AtomicLong();
+    private final AtomicLong completionRunsTotal = new AtomicLong();
+    private final AtomicLong completionMillisTotal = new AtomicLong();
+    private volatile long lastCompletionCount;
+    private volatile long lastCompletionMillis;
 
     public AppointmentService(AppointmentRepository appointmentRepository,
-                             PatientService patientService) {
+                             PatientService patientService,
+                             SlotAvailabilityEngine slotAvailabilityEngine,
+                             EmailOutboxService emailOutboxService,
+                             ApplicationEventPublisher eventPublisher,
+                             PlatformTransactionManager transactionManager) {
         this.appointmentRepository = appointmentRepository;
         this.patientService = patientService;
+        this.slotAvailabilityEngine = slotAvailabilityEngine;
+        this.emailOutboxService = emailOutboxService;
+        this.eventPublisher = eventPublisher;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
     }
 
     public Appointment createAppointment(Patient patient, Doctor doctor,
-                                        LocalDate date, String time) {
-        // Check for conflicts
-        List<Appointment> conflicts = appointmentRepository
-                .findByDoctorAndAppointmentDateAndAppointmentTimeAndStatus(
-                        doctor, date, time, AppointmentStatus.SCHEDULED);
-
-        if (!conflicts.isEmpty()) {
-            throw new RuntimeException("Time slot already booked");
+                                        LocalDate date, String requestedTime) {
+        String time = SlotAvailabilityEngine.toSlotTime(requestedTime);
+        if (!slotAvailabilityEngine.isWithinWorkingHours(doctor, time)) {
+            throw new RuntimeException("Time slot is outside the doctor's working hours");
         }
 
-        Appointment appointment = new Appointment();
-        appointment.setPatient(patient);
-        appointment.setDoctor(doctor);
-        appointment.setAppointmentDate(date);
-        appointment.setAppointmentTime(time);
-        appointment.setStatus(AppointmentStatus.SCHEDULED);
+        // Check for conflicts; same doctor/day contenders are serialized in-process,
+        // and the active-slot unique key settles races between nodes
+        Lock lock = bookingLocks.lockFor(List.of(doctor.getId(), date));
+        lock.lock();
+        try {
+            LocalDateTime startsAt = date.atTime(LocalTime.parse(time));
+
+            if (slotAvailabilityEngine.isWarm()) {
+                if (!slotAvailabilityEngine.reserve(doctor, date, time)) {
+                    throw slotTaken();
+                }
+            } else {
+                List<Appointment> conflicts = appointmentRepository
+                        .findByDoctorAndStartsAtAndStatus(doctor, startsAt, AppointmentStatus.SCHEDULED);
+
+                if (!conflicts.isEmpty()) {
+                    throw slotTaken();
+                }
+            }
+
+            Appointment appointment = new Appointment();
+            appointment.setPatient(patient);
+            appointment.setDoctor(doctor);
+            appointment.setAppointmentDate(date);
+            appointment.setAppointmentTime(time);
+            appointment.setStartsAt(startsAt);
+            appointment.setDurationMinutes(SlotAvailabilityEngine.SLOT_MINUTES);
+            appointment.setStatus(AppointmentStatus.SCHEDULED);
 
-        return appointmentRepository.save(appointment);
+            Appointment saved = appointmentRepository.saveAndFlush(appointment);
+            emailOutboxService.appointmentConfirmed(saved);
+            eventPublisher.publishEvent(new AppointmentChangedEvent(saved.getId(), startsAt, saved.getStatus()));
+            bookedTotal.incrementAndGet();
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            throw slotTaken();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Rows written before the active-slot key existed still need the flag to be protected by it
+    @EventListener(ApplicationReadyEvent.class)
+    public void activateScheduledSlots() {
+        appointmentRepository.activateScheduledSlots(LocalDate.now().atStartOfDay());
+    }
+
+    // Fills starts_at for rows that only have the legacy date/time strings; safe to re-run
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long backfillStartTimes() {
+        long total = 0;
+        while (true) {
+            Integer updated = chunkTransaction.execute(status -> {
+                int count = 0;
+                for (Object[] row : appointmentRepository.findWithoutStartsAt(
+                        PageRequest.of(0, BACKFILL_CHUNK_SIZE))) {
+                    count += appointmentRepository.backfillStartsAt((Long) row[0],
+                            toStartsAt((LocalDate) row[1], (String) row[2]),
+                            SlotAvailabilityEngine.SLOT_MINUTES);
+                }
+                return count;
+            });
+            if (updated == null || updated == 0) {
+                return total;
+            }
+            total += updated;
+        }
     }
 
-    public List<Appointment> getUpcomingAppointmentsForPatient(Patient patient) {
+    // Unparseable legacy times fall back to the start of the day
+    private static LocalDateTime toStartsAt(LocalDate date, String time) {
+        try {
+            return date.atTime(LocalTime.parse(time.trim(), TIME_FORMAT));
+        } catch (RuntimeException e) {
+            return date.atStartOfDay();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<PatientAppointmentView> getUpcomingAppointmentsForPatient(Patient patient) {
         return appointmentRepository
-                .findByPatientAndStatusOrderByAppointmentDateAscAppointmentTimeAsc(
-                        patient, AppointmentStatus.SCHEDULED);
+                .findByPatientAndStatusOrderByStartsAtAsc(patient, AppointmentStatus.SCHEDULED);
     }
 
-    public List<Appointment> getPastAppointmentsForPatient(Patient patient) {
+    @Transactional(readOnly = true)
+    public Slice<PatientAppointmentView> getPastAppointmentsForPatient(Patient patient, LocalDateTime afterStartsAt,
+                                                                      Long afterId, int size) {
         return appointmentRepository
-                .findByPatientAndStatusInOrderByAppointmentDateDescAppointmentTimeDesc(
+                .findPastAppointmentsForPatient(
                         patient, Arrays.asList(
                                 AppointmentStatus.COMPLETED,
                                 AppointmentStatus.CANCELLED_BY_PATIENT,
                                 AppointmentStatus.CANCELLED_BY_DOCTOR,
                                 AppointmentStatus.NO_SHOW
-                        ));
+                        ), afterStartsAt, afterId, PageRequest.of(0, size));
+    }
+
+    public Map<LocalDate, List<String>> getFreeSlots(Doctor doctor, int days) {
+        return slotAvailabilityEngine.freeSlots(doctor, LocalDate.now(), days);
+    }
+
+    public List<String> getWorkingSlots(Doctor doctor) {
+        return slotAvailabilityEngine.workingSlots(doctor);
     }
 
-    public List<Appointment> getUpcomingAppointmentsForDoctor(Doctor doctor) {
+    @Transactional(readOnly = true)
+    public List<DoctorAppointmentView> getUpcomingAppointmentsForDoctor(Doctor doctor) {
         return appointmentRepository
-                .findByDoctorAndStatusOrderByAppointmentDateAscAppointmentTimeAsc(
-                        doctor, AppointmentStatus.SCHEDULED);
+                .findByDoctorAndStartsAtGreaterThanEqualAndStatusOrderByStartsAtAsc(
+                        doctor, LocalDate.now().atStartOfDay(), AppointmentStatus.SCHEDULED);
+    }
+
+    @Transactional(readOnly = true)
+    public List<DoctorAppointmentView> getAppointmentsForDoctorOn(Doctor doctor, LocalDate date) {
+        return appointmentRepository.findDoctorAppointmentsBetween(
+                doctor, date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
+
+    // Doctor close-out: elapsed appointments become NO_SHOW and their patients are charged, one chunk per transaction.
+    // Rows that are not the doctor's, not yet started or already closed are skipped, so repeating a call is harmless.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int markNoShows(Long doctorId, Collection<Long> appointmentIds) {
+        List<Long> ids = appointmentIds.stream().distinct().toList();
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        for (int from = 0; from < ids.size(); from += NO_SHOW_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + NO_SHOW_CHUNK_SIZE, ids.size()));
+            Integer marked = chunkTransaction.execute(status -> {
+                List<Long> eligible = appointmentRepository.lockNoShowCandidates(doctorId, chunk, now);
+                if (eligible.isEmpty()) {
+                    return 0;
+                }
+                patientService.recordNoShows(eligible);
+                return appointmentRepository.markNoShow(eligible);
+            });
+            total += marked != null ? marked : 0;
+        }
+        noShowsTotal.addAndGet(total);
+        return total;
     }
 
     public void cancelAppointmentByPatient(Long appointmentId) {
         Appointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new RuntimeException("Appointment not found"));
+        releaseSlot(appointment);
         appointment.setStatus(AppointmentStatus.CANCELLED_BY_PATIENT);
         appointmentRepository.save(appointment);
+        eventPublisher.publishEvent(new AppointmentChangedEvent(
+                appointment.getId(), appointment.getStartsAt(), appointment.getStatus()));
     }
 
     public void cancelAppointmentByDoctor(Long appointmentId, String reason) {
         Appointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new RuntimeException("Appointment not found"));
+        releaseSlot(appointment);
         appointment.setStatus(AppointmentStatus.CANCELLED_BY_DOCTOR);
         appointment.setCancellationReason(reason);
         appointmentRepository.save(appointment);
+        emailOutboxService.appointmentCancelledByDoctor(appointment);
+        eventPublisher.publishEvent(new AppointmentChangedEvent(
+                appointment.getId(), appointment.getStartsAt(), appointment.getStatus()));
     }
 
+    @Transactional(readOnly = true)
     public Optional<Appointment> getAppointmentById(Long id) {
         return appointmentRepository.findById(id);
     }
 
-    // Scheduled task to mark appointments as completed (runs every hour)
-    @Scheduled(cron = "0 0 * * * *")
+    private void releaseSlot(Appointment appointment) {
+        if (appointment.getStatus() == AppointmentStatus.SCHEDULED) {
+            slotAvailabilityEngine.release(appointment.getDoctor().getId(),
+                    appointment.getAppointmentDate(), appointment.getAppointmentTime());
+        }
+    }
+
+    // Scheduled task to mark appointments as completed, in short chunked transactions
+    @Scheduled(fixedDelayString = "${mywelly.appointments.completion-delay-ms:300000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void updateCompletedAppointments() {
-        LocalDateTime twoHoursAgo = LocalDateTime.now().minusHours(2);
-        String threshold = twoHoursAgo.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
+        long start = System.currentTimeMillis();
+        LocalDateTime threshold = LocalDateTime.now().minusHours(2);
+
+        long transitioned = completeInChunks(() ->
+                appointmentRepository.findOverdueIds(threshold, PageRequest.of(0, COMPLETION_CHUNK_SIZE)));
 
-        List<Appointment> completedAppointments =
-                appointmentRepository.findCompletedAppointments(threshold);
+        lastCompletionCount = transitioned;
+        lastCompletionMillis = System.currentTimeMillis() - start;
+        completedTotal.addAndGet(transitioned);
+        completionRunsTotal.incrementAndGet();
+        completionMillisTotal.addAndGet(lastCompletionMillis);
+        log.debug("Completed {} appointments in {} ms", transitioned, lastCompletionMillis);
+    }
+
+    // Appointments the completion job has yet to pick up
+    @Transactional(readOnly = true)
+    public long getOverdueCount() {
+        return appointmentRepository.countOverdue(LocalDateTime.now().minusHours(2));
+    }
+
+    public long getBookedTotal() {
+        return bookedTotal.get();
+    }
+
+    public long getBookingConflictsTotal() {
+        return bookingConflictsTotal.get();
+    }
+
+    public long getNoShowsTotal() {
+        return noShowsTotal.get();
+    }
+
+    public long getCompletionRunsTotal() {
+        return completionRunsTotal.get();
+    }
+
+    public long getCompletionMillisTotal() {
+        return completionMillisTotal.get();
+    }
+
+    public long getCompletedTotal() {
+        return completedTotal.get();
+    }
+
+    public long getLastCompletionCount() {
+        return lastCompletionCount;
+    }
+
+    public long getLastCompletionMillis() {
+        return lastCompletionMillis;
+    }
+
+    private RuntimeException slotTaken() {
+        bookingConflictsTotal.incrementAndGet();
+        return new RuntimeException("Time slot already booked");
+    }
 
-        for (Appointment appointment : completedAppointments) {
-            appointment.setStatus(AppointmentStatus.COMPLETED);
-            appointmentRepository.save(appointment);
+    private long completeInChunks(Supplier<List<Long>> nextChunk) {
+        long total = 0;
+        while (true) {
+            Integer updated = chunkTransaction.execute(status -> {
+                List<Long> ids = nextChunk.get();
+                return ids.isEmpty() ? 0 : appointmentRepository.markCompleted(ids);
+            });
+            if (updated == null || updated == 0) {
+                return total;
+            }
+            total += updated;
         }
     }
 }
@@ -1,22 +1,40 @@
 package com.mywelly.service;
 
 import com.mywelly.model.User;
+import com.mywelly.repository.DoctorRepository;
+import com.mywelly.repository.LaboratoryRepository;
+import com.mywelly.repository.PatientRepository;
 import com.mywelly.repository.UserRepository;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import com.mywelly.security.AuthenticatedUser;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Collections;
+import java.util.Optional;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final PatientRepository patientRepository;
+    private final DoctorRepository doctorRepository;
+    private final LaboratoryRepository laboratoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    PatientRepository patientRepository,
+                                    DoctorRepository doctorRepository,
+                                    LaboratoryRepository laboratoryRepository,
+                                    ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
+        this.patientRepository = patientRepository;
+        this.doctorRepository = doctorRepository;
+        this.laboratoryRepository = laboratoryRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -28,10 +46,38 @@ public class CustomUserDetailsService implements UserDetailsService {
             throw new RuntimeException("Account is locked due to multiple failed login attempts");
         }
 
-        return new org.springframework.security.core.userdetails.User(
+        // Resolve the profile id once at login so controllers never look the user up again
+        Long profileId = findProfileId(user)
+                .orElseThrow(() -> new UsernameNotFoundException("No profile for user: " + email));
+
+        return new AuthenticatedUser(
+                user.getId(),
                 user.getEmail(),
                 user.getPassword(),
-                Collections.singletonList(new SimpleGrantedAuthority(user.getUserRole().name()))
+                user.getUserRole(),
+                profileId
         );
     }
+
+    // Called after a successful login whose hash was made with a different BCrypt cost
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails details, String newEncodedPassword) {
+        AuthenticatedUser user = (AuthenticatedUser) details;
+        userRepository.findById(user.getUserId()).ifPresent(entity -> {
+            entity.setPassword(newEncodedPassword);
+            userRepository.save(entity);
+        });
+        eventPublisher.publishEvent(new UserCredentialsChangedEvent(user.getUsername()));
+        return new AuthenticatedUser(user.getUserId(), user.getUsername(), newEncodedPassword,
+                user.getRole(), user.getProfileId());
+    }
+
+    private Optional<Long> findProfileId(User user) {
+        return switch (user.getUserRole()) {
+            case PATIENT -> patientRepository.findIdByUserId(user.getId());
+            case DOCTOR -> doctorRepository.findIdByUserId(user.getId());
+            case LABORATORY -> laboratoryRepository.findIdByUserId(user.getId());
+        };
+    }
 }
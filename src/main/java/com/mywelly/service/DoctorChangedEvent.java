@@ -0,0 +1,7 @@
+package com.mywelly.service;
+
+import com.mywelly.model.Doctor;
+
+// Published whenever a doctor's searchable fields change; consumed after commit
+public record DoctorChangedEvent(Doctor doctor) {
+}
@@ -0,0 +1,352 @@
+package com.mywelly.service;
+
+import com.mywelly.model.Doctor;
+import com.mywelly.repository.DoctorRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+public class DoctorSearchIndex {
+
+    private static final int GRAM = 3;
+
+    private static final Comparator<Doctor> BY_RATING = Comparator
+            .comparing((Doctor d) -> d.getAverageRating() != null ? d.getAverageRating() : 0.0)
+            .reversed()
+            .thenComparing(Doctor::getId);
+
+    private final DoctorRepository doctorRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Read-only snapshots keyed by doctor id
+    private final Map<Long, Doctor> doctors = new HashMap<>();
+    private final Map<String, Set<Long>> nameGrams = new HashMap<>();
+    private final Map<String, Set<Long>> bySpecialty = new HashMap<>();
+    private final Map<String, Set<Long>> byLocation = new HashMap<>();
+    private final NavigableMap<Double, Set<Long>> byFee = new TreeMap<>();
+    // Every doctor in result order, so broad queries walk it from the cursor and stop after limit matches
+    private final NavigableSet<Doctor> ranked = new TreeSet<>(BY_RATING);
+
+    // Changes seen while load() reads the table; replayed over the fresh rows so none is lost
+    private Map<Long, Doctor> pendingDuringLoad;
+
+    private volatile boolean warm = false;
+
+    public DoctorSearchIndex(DoctorRepository doctorRepository) {
+        this.doctorRepository = doctorRepository;
+    }
+
+    // The table is read outside the lock so searches keep being served from the old index meanwhile
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        lock.writeLock().lock();
+        try {
+            pendingDuringLoad = new LinkedHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<Doctor> all;
+        try {
+            all = doctorRepository.findAll();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            doctors.clear();
+            nameGrams.clear();
+            bySpecialty.clear();
+            byLocation.clear();
+            byFee.clear();
+            ranked.clear();
+            for (Doctor doctor : all) {
+                add(snapshot(doctor));
+            }
+            Map<Long, Doctor> pending = pendingDuringLoad;
+            pendingDuringLoad = null;
+            pending.values().forEach(this::replace);
+            warm = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDoctorChanged(DoctorChangedEvent event) {
+        put(event.doctor());
+    }
+
+    public void put(Doctor doctor) {
+        if (doctor.getId() == null) {
+            return;
+        }
+        Doctor snapshot = snapshot(doctor);
+        lock.writeLock().lock();
+        try {
+            replace(snapshot);
+            if (pendingDuringLoad != null) {
+                pendingDuringLoad.put(snapshot.getId(), snapshot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void replace(Doctor snapshot) {
+        Doctor previous = doctors.get(snapshot.getId());
+        if (previous != null) {
+            remove(previous);
+        }
+        add(snapshot);
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    public List<Doctor> search(String name, String specialty, String location,
+                               Double minPrice, Double maxPrice,
+                               Double afterRating, Long afterId, int limit) {
+        String needle = name != null ? name.toLowerCase() : null;
+
+        lock.readLock().lock();
+        try {
+            Collection<Long> candidates = candidates(needle, specialty, location, minPrice, maxPrice);
+
+            // A walk in rank order expects about limit * N / candidates checks; the heap costs candidates * log(limit)
+            if ((long) candidates.size() * candidates.size() > (long) limit * doctors.size()) {
+                return walkRanked(needle, specialty, location, minPrice, maxPrice, afterRating, afterId, limit);
+            }
+            return topK(candidates, needle, specialty, location, minPrice, maxPrice, afterRating, afterId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Doctor> walkRanked(String needle, String specialty, String location,
+                                    Double minPrice, Double maxPrice,
+                                    Double afterRating, Long afterId, int limit) {
+        NavigableSet<Doctor> from = ranked;
+        if (afterRating != null) {
+            // Same position as isAfter(): lower rating, or same rating and a higher id
+            Doctor cursor = new Doctor();
+            cursor.setAverageRating(afterRating);
+            cursor.setId(afterId != null ? afterId : Long.MAX_VALUE);
+            from = ranked.tailSet(cursor, false);
+        }
+        List<Doctor> results = new ArrayList<>(limit);
+        for (Doctor doctor : from) {
+            if (results.size() == limit) {
+                break;
+            }
+            if (matches(doctor, needle, specialty, location, minPrice, maxPrice)) {
+                results.add(doctor);
+            }
+        }
+        return results;
+    }
+
+    // Bounded heap whose head is the worst result kept so far
+    private List<Doctor> topK(Collection<Long> candidates, String needle, String specialty, String location,
+                              Double minPrice, Double maxPrice,
+                              Double afterRating, Long afterId, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<Doctor> heap = new PriorityQueue<>(limit + 1, BY_RATING.reversed());
+        for (Long id : candidates) {
+            Doctor doctor = doctors.get(id);
+            if (matches(doctor, needle, specialty, location, minPrice, maxPrice)
+                    && isAfter(doctor, afterRating, afterId)) {
+                if (heap.size() < limit) {
+                    heap.add(doctor);
+                } else if (BY_RATING.compare(doctor, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(doctor);
+                }
+            }
+        }
+        List<Doctor> results = new ArrayList<>(heap);
+        results.sort(BY_RATING);
+        return results;
+    }
+
+    // Picks the smallest posting list available; every candidate is re-checked in matches()
+    private Collection<Long> candidates(String needle, String specialty, String location,
+                                        Double minPrice, Double maxPrice) {
+        Collection<Long> best = doctors.keySet();
+
+        if (specialty != null) {
+            best = smaller(best, bySpecialty.getOrDefault(specialty, Collections.emptySet()));
+        }
+        if (location != null) {
+            best = smaller(best, byLocation.getOrDefault(location, Collections.emptySet()));
+        }
+        if (needle != null && needle.length() >= GRAM) {
+            best = smaller(best, nameCandidates(needle));
+        }
+        if ((minPrice != null || maxPrice != null) && best.size() > byFee.size()) {
+            best = feeCandidates(minPrice, maxPrice);
+        }
+        return best;
+    }
+
+    private Set<Long> nameCandidates(String needle) {
+        Set<Long> result = null;
+        for (String gram : grams(needle)) {
+            Set<Long> posting = nameGrams.get(gram);
+            if (posting == null) {
+                return Collections.emptySet();
+            }
+            if (result == null) {
+                result = new HashSet<>(posting);
+            } else {
+                result.retainAll(posting);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private List<Long> feeCandidates(Double minPrice, Double maxPrice) {
+        NavigableMap<Double, Set<Long>> range = byFee;
+        if (minPrice != null && maxPrice != null) {
+            range = minPrice <= maxPrice
+                    ? byFee.subMap(minPrice, true, maxPrice, true)
+                    : Collections.emptyNavigableMap();
+        } else if (minPrice != null) {
+            range = byFee.tailMap(minPrice, true);
+        } else if (maxPrice != null) {
+            range = byFee.headMap(maxPrice, true);
+        }
+        List<Long> result = new ArrayList<>();
+        range.values().forEach(result::addAll);
+        return result;
+    }
+
+    private static Collection<Long> smaller(Collection<Long> a, Collection<Long> b) {
+        return b.size() < a.size() ? b : a;
+    }
+
+    private static boolean matches(Doctor doctor, String needle, String specialty, String location,
+                                   Double minPrice, Double maxPrice) {
+        if (needle != null && (doctor.getName() == null || !doctor.getName().toLowerCase().contains(needle))) {
+            return false;
+        }
+        if (specialty != null && !specialty.equals(doctor.getSpecialty())) {
+            return false;
+        }
+        if (location != null && !location.equals(doctor.getLocation())) {
+            return false;
+        }
+        Double fee = doctor.getConsultationFee();
+        if (minPrice != null && (fee == null || fee < minPrice)) {
+            return false;
+        }
+        if (maxPrice != null && (fee == null || fee > maxPrice)) {
+            return false;
+        }
+        return true;
+    }
+
+    // Same keyset predicate as DoctorRepository.searchDoctors: (averageRating DESC, id ASC)
+    private static boolean isAfter(Doctor doctor, Double afterRating, Long afterId) {
+        if (afterRating == null) {
+            return true;
+        }
+        double rating = doctor.getAverageRating() != null ? doctor.getAverageRating() : 0.0;
+        return rating < afterRating
+                || (rating == afterRating && afterId != null && doctor.getId() > afterId);
+    }
+
+    private void add(Doctor doctor) {
+        Long id = doctor.getId();
+        doctors.put(id, doctor);
+        ranked.add(doctor);
+        if (doctor.getName() != null) {
+            for (String gram : grams(doctor.getName().toLowerCase())) {
+                nameGrams.computeIfAbsent(gram, k -> new HashSet<>()).add(id);
+            }
+        }
+        if (doctor.getSpecialty() != null) {
+            bySpecialty.computeIfAbsent(doctor.getSpecialty(), k -> new HashSet<>()).add(id);
+        }
+        if (doctor.getLocation() != null) {
+            byLocation.computeIfAbsent(doctor.getLocation(), k -> new HashSet<>()).add(id);
+        }
+        if (doctor.getConsultationFee() != null) {
+            byFee.computeIfAbsent(doctor.getConsultationFee(), k -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void remove(Doctor doctor) {
+        Long id = doctor.getId();
+        doctors.remove(id);
+        ranked.remove(doctor);
+        if (doctor.getName() != null) {
+            for (String gram : grams(doctor.getName().toLowerCase())) {
+                unlink(nameGrams, gram, id);
+            }
+        }
+        if (doctor.getSpecialty() != null) {
+            unlink(bySpecialty, doctor.getSpecialty(), id);
+        }
+        if (doctor.getLocation() != null) {
+            unlink(byLocation, doctor.getLocation(), id);
+        }
+        if (doctor.getConsultationFee() != null) {
+            unlink(byFee, doctor.getConsultationFee(), id);
+        }
+    }
+
+    private static <K> void unlink(Map<K, Set<Long>> postings, K key, Long id) {
+        Set<Long> ids = postings.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    // Detached copy so later changes to the managed entity cannot leak into the index
+    private static Doctor snapshot(Doctor doctor) {
+        Doctor copy = new Doctor();
+        copy.setId(doctor.getId());
+        copy.setName(doctor.getName());
+        copy.setSpecialty(doctor.getSpecialty());
+        copy.setLocation(doctor.getLocation());
+        copy.setPhoneNumber(doctor.getPhoneNumber());
+        copy.setWorkingHours(doctor.getWorkingHours());
+        copy.setCertificates(doctor.getCertificates());
+        copy.setConsultationFee(doctor.getConsultationFee());
+        copy.setAverageRating(doctor.getAverageRating());
+        copy.setTotalReviews(doctor.getTotalReviews());
+        return copy;
+    }
+}
@@ -1,9 +1,16 @@
 package com.mywelly.service;
 
+import com.mywelly.dto.DoctorSummary;
 import com.mywelly.model.Doctor;
 import com.mywelly.repository.DoctorRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,32 +20,64 @@ import java.util.Optional;
 public class DoctorService {
 
     private final DoctorRepository doctorRepository;
+    private final DoctorSearchIndex doctorSearchIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public DoctorService(DoctorRepository doctorRepository) {
+    public DoctorService(DoctorRepository doctorRepository,
+                        DoctorSearchIndex doctorSearchIndex,
+                        ApplicationEventPublisher eventPublisher) {
         this.doctorRepository = doctorRepository;
+        this.doctorSearchIndex = doctorSearchIndex;
+        this.eventPublisher = eventPublisher;
     }
 
+    @Transactional(readOnly = true)
     public List<Doctor> getAllDoctors() {
         return doctorRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Optional<Doctor> getDoctorById(Long id) {
         return doctorRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
+    public Optional<Doctor> getDoctorWithUser(Long id) {
+        return doctorRepository.findWithUserById(id);
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Doctor> getDoctorByUserId(Long userId) {
         return doctorRepository.findByUserId(userId);
     }
 
-    public List<Doctor> searchDoctors(String name, String specialty, String location,
-                                     Double minPrice, Double maxPrice) {
-        return doctorRepository.searchDoctors(name, specialty, location, minPrice, maxPrice);
+    @Transactional(readOnly = true)
+    public Slice<DoctorSummary> searchDoctors(String name, String specialty, String location,
+                                             Double minPrice, Double maxPrice,
+                                             Double afterRating, Long afterId, int size) {
+        // Empty form fields mean "no filter"
+        name = blankToNull(name);
+        specialty = blankToNull(specialty);
+        location = blankToNull(location);
+
+        if (doctorSearchIndex.isWarm()) {
+            List<DoctorSummary> doctors = doctorSearchIndex.search(name, specialty, location,
+                    minPrice, maxPrice, afterRating, afterId, size + 1)
+                    .stream().map(DoctorSummary::from).toList();
+            boolean hasNext = doctors.size() > size;
+            return new SliceImpl<>(hasNext ? doctors.subList(0, size) : doctors,
+                    PageRequest.of(0, size), hasNext);
+        }
+        return doctorRepository.searchDoctors(name, specialty, location, minPrice, maxPrice,
+                afterRating, afterId, PageRequest.of(0, size));
     }
 
+    @Transactional(readOnly = true)
     public List<String> getAllSpecialties() {
         return doctorRepository.findAllSpecialties();
     }
 
+    @Transactional(readOnly = true)
     public List<String> getAllLocations() {
         return doctorRepository.findAllLocations();
     }
@@ -48,13 +87,35 @@ public class DoctorService {
                 .orElseThrow(() -> new RuntimeException("Doctor not found"));
         doctor.setLocation(newLocation);
         doctorRepository.save(doctor);
+        eventPublisher.publishEvent(new DoctorChangedEvent(doctor));
     }
 
-    public void updateRating(Long doctorId, Double avgRating, Integer totalReviews) {
+    // Folds one new rating into the running aggregate with a single UPDATE
+    public void updateRating(Long doctorId, Integer rating) {
+        if (doctorRepository.addRating(doctorId, rating) == 0) {
+            throw new RuntimeException("Doctor not found");
+        }
         Doctor doctor = doctorRepository.findById(doctorId)
                 .orElseThrow(() -> new RuntimeException("Doctor not found"));
-        doctor.setAverageRating(avgRating);
-        doctor.setTotalReviews(totalReviews);
-        doctorRepository.save(doctor);
+        eventPublisher.publishEvent(new DoctorChangedEvent(doctor));
+    }
+
+    // The index is rebuilt once the recomputed ratings are committed, so a rollback cannot leave it ahead of the table
+    public void reconcileRatings() {
+        doctorRepository.reconcileRatings();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doctorSearchIndex.load();
+                }
+            });
+        } else {
+            doctorSearchIndex.load();
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
     }
 }
@@ -0,0 +1,207 @@
+package com.mywelly.service;
+
+import com.mywelly.model.OutboxEmail;
+import com.mywelly.model.OutboxEmail.OutboxStatus;
+import com.mywelly.repository.OutboxEmailRepository;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Drains the email outbox in batches; each batch goes out over a single SMTP connection.
+// Rows are claimed (SENDING, claimed_by) before they are sent and only the claimant records the outcome, so
+// dispatchers on several nodes never send the same email. A claim runs out after claim-timeout, after which
+// the rows of a dispatcher that died mid-batch are sent again.
+@Component
+@ConditionalOnProperty(name = "mywelly.mail.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class EmailDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailDispatcher.class);
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final OutboxEmailRepository outboxEmailRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transaction;
+
+    private final String from;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration claimTimeout;
+
+    private final AtomicLong sentTotal = new AtomicLong();
+    private final AtomicLong failedAttemptsTotal = new AtomicLong();
+    private final AtomicLong abandonedTotal = new AtomicLong();
+    private volatile long lastBatchSize;
+    private volatile long lastBatchMillis;
+
+    public EmailDispatcher(OutboxEmailRepository outboxEmailRepository,
+                           JavaMailSender mailSender,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${mywelly.mail.from:${spring.mail.username:no-reply@mywelly.ma}}") String from,
+                           @Value("${mywelly.mail.outbox.batch-size:50}") int batchSize,
+                           @Value("${mywelly.mail.outbox.max-batches-per-run:20}") int maxBatchesPerRun,
+                           @Value("${mywelly.mail.outbox.max-attempts:8}") int maxAttempts,
+                           @Value("${mywelly.mail.outbox.initial-backoff:30s}") Duration initialBackoff,
+                           @Value("${mywelly.mail.outbox.max-backoff:1h}") Duration maxBackoff,
+                           @Value("${mywelly.mail.outbox.claim-timeout:5m}") Duration claimTimeout) {
+        this.outboxEmailRepository = outboxEmailRepository;
+        this.mailSender = mailSender;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.from = from;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.claimTimeout = claimTimeout;
+    }
+
+    @Scheduled(fixedDelayString = "${mywelly.mail.outbox.poll-delay-ms:2000}")
+    public void dispatch() {
+        for (int run = 0; run < maxBatchesPerRun; run++) {
+            String claimedBy = UUID.randomUUID().toString();
+            List<OutboxEmail> batch = transaction.execute(status -> claim(claimedBy));
+            if (batch == null || batch.isEmpty()) {
+                return;
+            }
+            sendBatch(batch, claimedBy);
+            if (batch.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private List<OutboxEmail> claim(String claimedBy) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = outboxEmailRepository.findDueIds(now, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        outboxEmailRepository.claim(ids, claimedBy, now.plus(claimTimeout), now);
+        return outboxEmailRepository.findByIdInAndClaimedBy(ids, claimedBy);
+    }
+
+    private void sendBatch(List<OutboxEmail> batch, String claimedBy) {
+        long start = System.currentTimeMillis();
+        Map<Long, String> failures = new HashMap<>();
+        Map<MimeMessage, Long> messages = new LinkedHashMap<>();
+
+        for (OutboxEmail email : batch) {
+            try {
+                messages.put(toMimeMessage(email), email.getId());
+            } catch (MessagingException e) {
+                failures.put(email.getId(), e.getMessage());
+            }
+        }
+
+        if (!messages.isEmpty()) {
+            try {
+                mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                if (e.getFailedMessages().isEmpty()) {
+                    messages.values().forEach(id -> failures.put(id, e.getMessage()));
+                } else {
+                    e.getFailedMessages().forEach((message, cause) ->
+                            failures.put(messages.get(message), cause.getMessage()));
+                }
+            } catch (MailException e) {
+                messages.values().forEach(id -> failures.put(id, e.getMessage()));
+            }
+        }
+
+        transaction.executeWithoutResult(status -> record(batch, claimedBy, failures));
+
+        lastBatchSize = batch.size();
+        lastBatchMillis = System.currentTimeMillis() - start;
+        log.debug("Dispatched {} emails ({} failed) in {} ms", batch.size(), failures.size(), lastBatchMillis);
+    }
+
+    private MimeMessage toMimeMessage(OutboxEmail email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+        helper.setFrom(from);
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody());
+        return message;
+    }
+
+    private void record(List<OutboxEmail> batch, String claimedBy, Map<Long, String> failures) {
+        LocalDateTime now = LocalDateTime.now();
+        for (OutboxEmail email : batch) {
+            String error = failures.get(email.getId());
+            int updated;
+            if (error == null) {
+                updated = outboxEmailRepository.markSent(email.getId(), claimedBy, now);
+                sentTotal.incrementAndGet();
+            } else {
+                int attempts = email.getAttempts() + 1;
+                boolean abandoned = attempts >= maxAttempts;
+                updated = outboxEmailRepository.markFailed(email.getId(), claimedBy,
+                        abandoned ? OutboxStatus.FAILED : OutboxStatus.PENDING, attempts,
+                        error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error,
+                        abandoned ? now : now.plus(backoff(attempts)));
+                failedAttemptsTotal.incrementAndGet();
+                if (abandoned) {
+                    abandonedTotal.incrementAndGet();
+                    log.warn("Giving up on email {} to {} after {} attempts: {}",
+                            email.getId(), email.getRecipient(), attempts, error);
+                }
+            }
+            if (updated == 0) {
+                log.warn("Claim on email {} ran out before the batch was recorded; raise mywelly.mail.outbox.claim-timeout",
+                        email.getId());
+            }
+        }
+    }
+
+    // Exponential backoff: initial, 2x, 4x, ... capped at maxBackoff
+    private Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    public long getSentTotal() {
+        return sentTotal.get();
+    }
+
+    public long getFailedAttemptsTotal() {
+        return failedAttemptsTotal.get();
+    }
+
+    public long getAbandonedTotal() {
+        return abandonedTotal.get();
+    }
+
+    public long getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    public long getLastBatchMillis() {
+        return lastBatchMillis;
+    }
+
+    public long getPendingCount() {
+        return outboxEmailRepository.countByStatus(OutboxStatus.PENDING);
+    }
+}
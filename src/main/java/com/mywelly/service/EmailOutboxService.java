@@ -0,0 +1,59 @@
+package com.mywelly.service;
+
+import com.mywelly.model.Appointment;
+import com.mywelly.model.OutboxEmail;
+import com.mywelly.repository.OutboxEmailRepository;
+import com.mywelly.repository.PatientRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Emails are only written to the outbox here, inside the caller's transaction; EmailDispatcher sends them
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class EmailOutboxService {
+
+    private final OutboxEmailRepository outboxEmailRepository;
+    private final PatientRepository patientRepository;
+
+    public EmailOutboxService(OutboxEmailRepository outboxEmailRepository,
+                              PatientRepository patientRepository) {
+        this.outboxEmailRepository = outboxEmailRepository;
+        this.patientRepository = patientRepository;
+    }
+
+    public void enqueue(String recipient, String subject, String body) {
+        OutboxEmail email = new OutboxEmail();
+        email.setRecipient(recipient);
+        email.setSubject(subject);
+        email.setBody(body);
+        outboxEmailRepository.save(email);
+    }
+
+    public void appointmentConfirmed(Appointment appointment) {
+        enqueueForPatient(appointment, "Appointment confirmed",
+                "Your appointment with " + appointment.getDoctor().getName()
+                        + " on " + appointment.getAppointmentDate()
+                        + " at " + appointment.getAppointmentTime() + " is confirmed.");
+    }
+
+    public void appointmentCancelledByDoctor(Appointment appointment) {
+        String reason = appointment.getCancellationReason();
+        enqueueForPatient(appointment, "Appointment cancelled",
+                appointment.getDoctor().getName() + " cancelled your appointment on "
+                        + appointment.getAppointmentDate() + " at " + appointment.getAppointmentTime() + "."
+                        + (reason != null && !reason.isBlank() ? "\nReason: " + reason : ""));
+    }
+
+    public void appointmentReminder(Appointment appointment) {
+        enqueueForPatient(appointment, "Appointment reminder",
+                "Reminder: you have an appointment with " + appointment.getDoctor().getName()
+                        + " on " + appointment.getAppointmentDate()
+                        + " at " + appointment.getAppointmentTime() + ".");
+    }
+
+    private void enqueueForPatient(Appointment appointment, String subject, String body) {
+        patientRepository.findEmailById(appointment.getPatient().getId())
+                .ifPresent(recipient -> enqueue(recipient, subject, body));
+    }
+}
@@ -0,0 +1,157 @@
+package com.mywelly.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Hashed hierarchical timing wheel: 64 slots per level, each level 64x coarser than the one below.
+// Schedule and cancel are O(1); advancing cascades coarse slots down as their window comes up.
+public class HierarchicalTimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 5;
+
+    private final long tickMillis;
+    @SuppressWarnings("unchecked")
+    private final Bucket[][] wheels = (Bucket[][]) new HierarchicalTimingWheel.Bucket[LEVELS][SLOTS];
+    private long currentTick;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMillis, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        for (Bucket[] level : wheels) {
+            for (int i = 0; i < SLOTS; i++) {
+                level[i] = new Bucket();
+            }
+        }
+    }
+
+    public final class Timeout {
+        private final T task;
+        private final long deadlineTick;
+        private Timeout prev;
+        private Timeout next;
+        private Bucket bucket;
+
+        private Timeout(T task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T task() {
+            return task;
+        }
+
+        // Returns false if the timeout already expired or was cancelled
+        public boolean cancel() {
+            synchronized (HierarchicalTimingWheel.this) {
+                if (bucket == null) {
+                    return false;
+                }
+                bucket.remove(this);
+                size--;
+                return true;
+            }
+        }
+    }
+
+    private final class Bucket {
+        private Timeout head;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        Timeout drain() {
+            Timeout first = head;
+            head = null;
+            return first;
+        }
+    }
+
+    // Deadlines at or before the current tick fire on the next advance
+    public synchronized Timeout schedule(T task, long deadlineMillis) {
+        long deadlineTick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, currentTick + 1);
+        Timeout timeout = new Timeout(task, deadlineTick);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    // Moves time forward to nowMillis and returns the tasks whose deadline has passed
+    public synchronized List<T> advanceTo(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            Timeout timeout = wheels[0][(int) (currentTick & SLOT_MASK)].drain();
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                timeout.prev = null;
+                timeout.next = null;
+                timeout.bucket = null;
+                size--;
+                expired.add(timeout.task);
+                timeout = next;
+            }
+        }
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // Re-places the entries of each coarse slot whose window starts at the current tick (finest level first)
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                return;
+            }
+            Timeout timeout = wheels[level][(int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK)].drain();
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                place(timeout);
+                timeout = next;
+            }
+        }
+    }
+
+    private void place(Timeout timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        long deadlineTick = timeout.deadlineTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        if (delta >= 1L << (SLOT_BITS * LEVELS)) {
+            // Beyond the top level's horizon: park in its last slot and re-place when it cascades
+            deadlineTick = currentTick + (1L << (SLOT_BITS * LEVELS)) - 1;
+        }
+        int slot = (int) ((deadlineTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        wheels[level][slot].add(timeout);
+    }
+}
@@ -0,0 +1,270 @@
+package com.mywelly.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Counts failed logins in memory per email and per client address, so lockout checks need no DB I/O.
+// Every counter is a single CAS-updated long; users.failed_login_attempts/account_locked are written behind in batches.
+// Counters are per node. Failures from all nodes add up in the users table, which locks the account once they
+// reach the threshold, but until the next flush each node can allow up to the threshold on its own (5 x nodes).
+// The address limit is never shared, so behind N nodes a client gets up to N x max-failures-per-address.
+// Only existing accounts get a counter, so failures against made-up emails cannot grow the map.
+@Component
+public class LoginAttemptTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginAttemptTracker.class);
+
+    public static final int ACCOUNT_LOCK_THRESHOLD = 5;
+
+    // Marks a counter that was evicted; writers that see it start over on a fresh one
+    private static final long RETIRED = -1L;
+
+    private final UserService userService;
+    private final int maxFailuresPerAddress;
+    private final long addressWindowMillis;
+
+    private final ConcurrentHashMap<String, AccountFailures> accounts = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AddressFailures> addresses = new ConcurrentHashMap<>();
+
+    private final AtomicLong failuresTotal = new AtomicLong();
+    private final AtomicLong lockoutsTotal = new AtomicLong();
+    private final AtomicLong blockedTotal = new AtomicLong();
+
+    public LoginAttemptTracker(UserService userService,
+                               @Value("${mywelly.security.login.max-failures-per-address:20}") int maxFailuresPerAddress,
+                               @Value("${mywelly.security.login.address-window:10m}") Duration addressWindow) {
+        this.userService = userService;
+        this.maxFailuresPerAddress = maxFailuresPerAddress;
+        this.addressWindowMillis = addressWindow.toMillis();
+    }
+
+    public boolean isBlocked(String email, String address) {
+        AccountFailures account = email != null ? accounts.get(email) : null;
+        AddressFailures client = address != null ? addresses.get(address) : null;
+        boolean blocked = (account != null && account.isLocked())
+                || (client != null && client.count(System.currentTimeMillis(), addressWindowMillis) >= maxFailuresPerAddress);
+        if (blocked) {
+            blockedTotal.incrementAndGet();
+        }
+        return blocked;
+    }
+
+    @EventListener
+    public void onBadCredentials(AuthenticationFailureBadCredentialsEvent event) {
+        long now = System.currentTimeMillis();
+        String email = event.getAuthentication().getName();
+        failuresTotal.incrementAndGet();
+
+        // The existence check only runs for the first failure of an account that is not tracked yet
+        if (accounts.containsKey(email) || userService.emailExists(email)) {
+            int consecutive;
+            AccountFailures account;
+            do {
+                account = accounts.computeIfAbsent(email, key -> new AccountFailures());
+                consecutive = account.recordFailure(now);
+            } while (consecutive < 0 && retry(accounts, email, account));
+            if (consecutive == ACCOUNT_LOCK_THRESHOLD) {
+                lockoutsTotal.incrementAndGet();
+                log.debug("Locked {} after {} failed logins", email, consecutive);
+            }
+        }
+
+        String address = remoteAddress(event.getAuthentication());
+        if (address != null) {
+            AddressFailures client;
+            do {
+                client = addresses.computeIfAbsent(address, key -> new AddressFailures());
+            } while (!client.recordFailure(now, addressWindowMillis) && retry(addresses, address, client));
+        }
+    }
+
+    @EventListener
+    public void onSuccess(AuthenticationSuccessEvent event) {
+        String email = event.getAuthentication().getName();
+        AccountFailures account;
+        do {
+            account = accounts.computeIfAbsent(email, key -> new AccountFailures());
+        } while (!account.recordSuccess(System.currentTimeMillis()) && retry(accounts, email, account));
+    }
+
+    // fixedDelay never overlaps runs, so flushedState is only touched by one thread at a time
+    @Scheduled(fixedDelayString = "${mywelly.security.login.flush-delay-ms:2000}")
+    public void flush() {
+        List<String> resets = new ArrayList<>();
+        Map<Integer, List<String>> failures = new HashMap<>();
+        Map<AccountFailures, Long> snapshots = new HashMap<>();
+
+        accounts.forEach((email, account) -> {
+            long state = account.state.get();
+            if (state == RETIRED || state == account.flushedState) {
+                return;
+            }
+            int newFailures = consecutive(state);
+            if (generation(state) != generation(account.flushedState)) {
+                resets.add(email);
+            } else {
+                newFailures -= consecutive(account.flushedState);
+            }
+            if (newFailures > 0) {
+                failures.computeIfAbsent(newFailures, count -> new ArrayList<>()).add(email);
+            }
+            snapshots.put(account, state);
+        });
+
+        if (!snapshots.isEmpty()) {
+            try {
+                userService.applyLoginFailures(resets, failures, ACCOUNT_LOCK_THRESHOLD);
+                snapshots.forEach((account, state) -> account.flushedState = state);
+                log.debug("Flushed login failures for {} accounts", snapshots.size());
+            } catch (RuntimeException e) {
+                // Nothing is marked flushed; the whole delta is retried on the next run
+                log.warn("Could not flush login failures: {}", e.getMessage());
+                return;
+            }
+        }
+
+        long idleBefore = System.currentTimeMillis() - addressWindowMillis;
+        accounts.forEach((email, account) -> {
+            if (account.retireIfIdle(idleBefore)) {
+                accounts.remove(email, account);
+            }
+        });
+        addresses.forEach((address, client) -> {
+            if (client.retireIfExpired(System.currentTimeMillis(), addressWindowMillis)) {
+                addresses.remove(address, client);
+            }
+        });
+    }
+
+    public long getFailuresTotal() {
+        return failuresTotal.get();
+    }
+
+    public long getLockoutsTotal() {
+        return lockoutsTotal.get();
+    }
+
+    public long getBlockedTotal() {
+        return blockedTotal.get();
+    }
+
+    public int getTrackedAccountCount() {
+        return accounts.size();
+    }
+
+    public int getTrackedAddressCount() {
+        return addresses.size();
+    }
+
+    public static String remoteAddress(Authentication authentication) {
+        return authentication.getDetails() instanceof WebAuthenticationDetails details
+                ? details.getRemoteAddress() : null;
+    }
+
+    private static <T> boolean retry(ConcurrentHashMap<String, T> map, String key, T retired) {
+        map.remove(key, retired);
+        return true;
+    }
+
+    private static int generation(long state) {
+        return (int) (state >>> 32);
+    }
+
+    private static int consecutive(long state) {
+        return (int) state;
+    }
+
+    // state = generation (high 32 bits) | consecutive failures (low 32 bits); a success starts a new generation,
+    // so every change is visible to a CAS and the flusher can tell "reset then n failures" from "n more failures"
+    private static final class AccountFailures {
+
+        final AtomicLong state = new AtomicLong();
+        volatile long lastSeenAt = System.currentTimeMillis();
+        long flushedState;
+
+        int recordFailure(long now) {
+            long current;
+            do {
+                current = state.get();
+                if (current == RETIRED) {
+                    return -1;
+                }
+            } while (!state.compareAndSet(current, current + 1));
+            lastSeenAt = now;
+            return consecutive(current) + 1;
+        }
+
+        boolean recordSuccess(long now) {
+            long current;
+            do {
+                current = state.get();
+                if (current == RETIRED) {
+                    return false;
+                }
+            } while (!state.compareAndSet(current, (long) (generation(current) + 1) << 32));
+            lastSeenAt = now;
+            return true;
+        }
+
+        boolean isLocked() {
+            long current = state.get();
+            return current != RETIRED && consecutive(current) >= ACCOUNT_LOCK_THRESHOLD;
+        }
+
+        // Only fully flushed, idle counters go; the CAS fails if anything was recorded since the read
+        boolean retireIfIdle(long idleBefore) {
+            long current = state.get();
+            return current == flushedState && lastSeenAt < idleBefore && state.compareAndSet(current, RETIRED);
+        }
+    }
+
+    // state = window start in seconds (high 32 bits) | failures in that window (low 32 bits)
+    private static final class AddressFailures {
+
+        final AtomicLong state = new AtomicLong();
+
+        boolean recordFailure(long now, long windowMillis) {
+            long nowSeconds = now / 1000;
+            long current;
+            long next;
+            do {
+                current = state.get();
+                if (current == RETIRED) {
+                    return false;
+                }
+                long windowStart = current >>> 32;
+                next = current == 0 || (nowSeconds - windowStart) * 1000 >= windowMillis
+                        ? nowSeconds << 32 | 1
+                        : current + 1;
+            } while (!state.compareAndSet(current, next));
+            return true;
+        }
+
+        int count(long now, long windowMillis) {
+            long current = state.get();
+            return current == RETIRED || (now / 1000 - (current >>> 32)) * 1000 >= windowMillis ? 0 : (int) current;
+        }
+
+        boolean retireIfExpired(long now, long windowMillis) {
+            long current = state.get();
+            return current != RETIRED && (now / 1000 - (current >>> 32)) * 1000 >= windowMillis
+                    && state.compareAndSet(current, RETIRED);
+        }
+    }
+}
@@ -2,35 +2,63 @@ package com.mywelly.service;
 
 import com.mywelly.model.Patient;
 import com.mywelly.repository.PatientRepository;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 @Service
 @Transactional
 public class PatientService {
 
+    private static final int NO_SHOW_BLOCK_THRESHOLD = 3;
+
     private final PatientRepository patientRepository;
 
     public PatientService(PatientRepository patientRepository) {
         this.patientRepository = patientRepository;
     }
 
+    @Transactional(readOnly = true)
     public Optional<Patient> getPatientByUserId(Long userId) {
         return patientRepository.findByUserId(userId);
     }
 
+    @Transactional(readOnly = true)
+    public Optional<Patient> getPatientById(Long id) {
+        return patientRepository.findById(id);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Patient> getPatientWithUser(Long id) {
+        return patientRepository.findWithUserById(id);
+    }
+
+    // Uninitialized proxy for associating the patient with new rows without loading it
+    public Patient getPatientReference(Long id) {
+        return patientRepository.getReferenceById(id);
+    }
+
     public void incrementNoShowCount(Long patientId) {
-        Patient patient = patientRepository.findById(patientId)
-                .orElseThrow(() -> new RuntimeException("Patient not found"));
-        patient.setNoShowCount(patient.getNoShowCount() + 1);
-        if (patient.getNoShowCount() >= 3) {
-            patient.setIsBlocked(true);
+        if (patientRepository.incrementNoShowCount(patientId, NO_SHOW_BLOCK_THRESHOLD) == 0) {
+            throw new RuntimeException("Patient not found");
         }
-        patientRepository.save(patient);
     }
 
+    // Charges each patient once per appointment in the list and blocks those crossing the threshold
+    public int recordNoShows(List<Long> appointmentIds) {
+        return patientRepository.recordNoShows(appointmentIds, NO_SHOW_BLOCK_THRESHOLD);
+    }
+
+    // Scheduled task to recompute no-show counters from the appointments table (runs nightly)
+    @Scheduled(cron = "0 45 3 * * *")
+    public void reconcileNoShows() {
+        patientRepository.reconcileNoShows(NO_SHOW_BLOCK_THRESHOLD);
+    }
+
+    @Transactional(readOnly = true)
     public boolean isPatientBlocked(Long patientId) {
         Patient patient = patientRepository.findById(patientId)
                 .orElseThrow(() -> new RuntimeException("Patient not found"));
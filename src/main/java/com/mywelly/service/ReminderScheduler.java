@@ -0,0 +1,185 @@
+package com.mywelly.service;
+
+import com.mywelly.model.Appointment.AppointmentStatus;
+import com.mywelly.repository.AppointmentRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Holds one timing-wheel entry per pending reminder; the last sent offset is persisted on the appointment
+@Component
+public class ReminderScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(ReminderScheduler.class);
+
+    private static final int LOAD_CHUNK_SIZE = 5000;
+    private static final int FIRE_CHUNK_SIZE = 200;
+    private static final long RETRY_DELAY_MILLIS = 60_000;
+
+    private final AppointmentRepository appointmentRepository;
+    private final EmailOutboxService emailOutboxService;
+    private final TransactionTemplate transaction;
+
+    // Minutes before start, smallest first
+    private final List<Integer> offsets;
+    private final long tickMillis;
+
+    private final HierarchicalTimingWheel<Reminder> wheel;
+    private final Map<Long, List<HierarchicalTimingWheel<Reminder>.Timeout>> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reminder-wheel");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong firedTotal = new AtomicLong();
+
+    record Reminder(Long appointmentId, int minutesBefore) {
+    }
+
+    public ReminderScheduler(AppointmentRepository appointmentRepository,
+                             EmailOutboxService emailOutboxService,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${mywelly.reminders.offsets:24h,2h}") List<Duration> offsets,
+                             @Value("${mywelly.reminders.tick:1s}") Duration tick) {
+        this.appointmentRepository = appointmentRepository;
+        this.emailOutboxService = emailOutboxService;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.offsets = offsets.stream().map(offset -> (int) offset.toMinutes()).distinct().sorted().toList();
+        this.tickMillis = tick.toMillis();
+        this.wheel = new HierarchicalTimingWheel<>(tickMillis, System.currentTimeMillis());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        int loaded = load();
+        log.debug("Loaded reminders for {} scheduled appointments", loaded);
+        ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        if (event.status() == AppointmentStatus.SCHEDULED) {
+            schedule(event.appointmentId(), event.startsAt(), null, false);
+        } else {
+            cancel(event.appointmentId());
+        }
+    }
+
+    public int getPendingCount() {
+        return wheel.size();
+    }
+
+    public long getFiredTotal() {
+        return firedTotal.get();
+    }
+
+    // Rebuilds the wheel from upcoming SCHEDULED appointments, keyset-paged by id
+    private int load() {
+        int loaded = 0;
+        LocalDateTime now = LocalDateTime.now();
+        Long afterId = 0L;
+        List<Object[]> rows;
+        do {
+            rows = appointmentRepository.findPendingReminders(now, afterId, PageRequest.of(0, LOAD_CHUNK_SIZE));
+            for (Object[] row : rows) {
+                afterId = (Long) row[0];
+                schedule(afterId, (LocalDateTime) row[1], (Integer) row[2], true);
+            }
+            loaded += rows.size();
+        } while (rows.size() == LOAD_CHUNK_SIZE);
+        return loaded;
+    }
+
+    // With catchUp, a reminder missed while the app was down is sent late, unless a later one is still due
+    private void schedule(Long appointmentId, LocalDateTime startsAt, Integer lastSentMinutes, boolean catchUp) {
+        cancel(appointmentId);
+        long now = System.currentTimeMillis();
+        long startMillis = startsAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (startMillis <= now) {
+            return;
+        }
+
+        List<HierarchicalTimingWheel<Reminder>.Timeout> timeouts = new ArrayList<>();
+        Integer overdueMinutes = null;
+        for (int minutes : offsets) {
+            if (lastSentMinutes != null && minutes >= lastSentMinutes) {
+                continue;
+            }
+            long fireAt = startMillis - minutes * 60_000L;
+            if (fireAt > now) {
+                timeouts.add(wheel.schedule(new Reminder(appointmentId, minutes), fireAt));
+            } else if (overdueMinutes == null) {
+                overdueMinutes = minutes;
+            }
+        }
+        if (catchUp && overdueMinutes != null && timeouts.isEmpty()) {
+            timeouts.add(wheel.schedule(new Reminder(appointmentId, overdueMinutes), now));
+        }
+        if (!timeouts.isEmpty()) {
+            pending.put(appointmentId, Collections.synchronizedList(timeouts));
+        }
+    }
+
+    private void cancel(Long appointmentId) {
+        List<HierarchicalTimingWheel<Reminder>.Timeout> timeouts = pending.remove(appointmentId);
+        if (timeouts != null) {
+            timeouts.forEach(timeout -> timeout.cancel());
+        }
+    }
+
+    private void tick() {
+        List<Reminder> due = wheel.advanceTo(System.currentTimeMillis());
+        for (int from = 0; from < due.size(); from += FIRE_CHUNK_SIZE) {
+            List<Reminder> chunk = due.subList(from, Math.min(from + FIRE_CHUNK_SIZE, due.size()));
+            try {
+                transaction.executeWithoutResult(status -> chunk.forEach(this::fire));
+                chunk.forEach(this::forget);
+            } catch (RuntimeException e) {
+                log.warn("Sending {} reminders failed, retrying in a minute", chunk.size(), e);
+                long retryAt = System.currentTimeMillis() + RETRY_DELAY_MILLIS;
+                chunk.forEach(reminder -> wheel.schedule(reminder, retryAt));
+            }
+        }
+    }
+
+    // The conditional update makes firing idempotent across restarts and nodes
+    private void fire(Reminder reminder) {
+        if (appointmentRepository.markReminderSent(reminder.appointmentId(), reminder.minutesBefore()) == 1) {
+            appointmentRepository.findById(reminder.appointmentId())
+                    .ifPresent(appointment -> emailOutboxService.appointmentReminder(appointment));
+            firedTotal.incrementAndGet();
+        }
+    }
+
+    private void forget(Reminder reminder) {
+        pending.computeIfPresent(reminder.appointmentId(), (id, timeouts) -> {
+            timeouts.removeIf(timeout -> timeout.task().equals(reminder));
+            return timeouts.isEmpty() ? null : timeouts;
+        });
+    }
+}
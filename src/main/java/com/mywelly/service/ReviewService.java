@@ -1,14 +1,20 @@
 package com.mywelly.service;
 
+import com.mywelly.dto.ReviewView;
 import com.mywelly.model.Review;
 import com.mywelly.model.Doctor;
 import com.mywelly.model.Laboratory;
 import com.mywelly.model.Patient;
+import com.mywelly.repository.LaboratoryRepository;
 import com.mywelly.repository.ReviewRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @Transactional
@@ -16,10 +22,15 @@ public class ReviewService {
 
     private final ReviewRepository reviewRepository;
     private final DoctorService doctorService;
+    private final LaboratoryRepository laboratoryRepository;
+    private final AtomicLong reviewsTotal = new AtomicLong();
 
-    public ReviewService(ReviewRepository reviewRepository, DoctorService doctorService) {
+    public ReviewService(ReviewRepository reviewRepository,
+                        DoctorService doctorService,
+                        LaboratoryRepository laboratoryRepository) {
         this.reviewRepository = reviewRepository;
         this.doctorService = doctorService;
+        this.laboratoryRepository = laboratoryRepository;
     }
 
     public Review createReviewForDoctor(Patient patient, Doctor doctor, Integer rating, String comment) {
@@ -32,8 +43,9 @@ public class ReviewService {
         Review savedReview = reviewRepository.save(review);
 
         // Update doctor's average rating
-        updateDoctorRating(doctor.getId());
+        doctorService.updateRating(doctor.getId(), rating);
 
+        reviewsTotal.incrementAndGet();
         return savedReview;
     }
 
@@ -44,26 +56,39 @@ public class ReviewService {
         review.setRating(rating);
         review.setComment(comment);
 
-        return reviewRepository.save(review);
+        Review savedReview = reviewRepository.save(review);
+
+        // Update laboratory's average rating; rolls the review back if the lab is gone
+        if (laboratoryRepository.addRating(laboratory.getId(), rating) == 0) {
+            throw new RuntimeException("Laboratory not found");
+        }
+
+        reviewsTotal.incrementAndGet();
+        return savedReview;
     }
 
-    public List<Review> getReviewsForDoctor(Doctor doctor) {
-        return reviewRepository.findByDoctorOrderByCreatedAtDesc(doctor);
+    @Transactional(readOnly = true)
+    public Slice<ReviewView> getReviewsForDoctor(Doctor doctor, LocalDateTime afterCreatedAt,
+                                                Long afterId, int size) {
+        return reviewRepository.findByDoctorOrderByCreatedAtDesc(
+                doctor, afterCreatedAt, afterId, PageRequest.of(0, size));
     }
 
-    public List<Review> getReviewsForLab(Laboratory laboratory) {
-        return reviewRepository.findByLaboratoryOrderByCreatedAtDesc(laboratory);
+    @Transactional(readOnly = true)
+    public Slice<ReviewView> getReviewsForLab(Laboratory laboratory, LocalDateTime afterCreatedAt,
+                                             Long afterId, int size) {
+        return reviewRepository.findByLaboratoryOrderByCreatedAtDesc(
+                laboratory, afterCreatedAt, afterId, PageRequest.of(0, size));
     }
 
-    private void updateDoctorRating(Long doctorId) {
-        Double avgRating = reviewRepository.calculateAverageRatingForDoctor(doctorId);
-        Long totalReviews = reviewRepository.countByDoctor(
-                doctorService.getDoctorById(doctorId).orElse(null));
+    // Scheduled task to recompute rating aggregates from the reviews table (runs nightly)
+    @Scheduled(cron = "0 30 3 * * *")
+    public void reconcileRatings() {
+        doctorService.reconcileRatings();
+        laboratoryRepository.reconcileRatings();
+    }
 
-        if (avgRating != null) {
-            doctorService.updateRating(doctorId,
-                    Math.round(avgRating * 10.0) / 10.0,
-                    totalReviews.intValue());
-        }
+    public long getReviewsTotal() {
+        return reviewsTotal.get();
     }
 }
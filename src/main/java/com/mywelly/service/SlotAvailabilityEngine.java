@@ -0,0 +1,227 @@
+package com.mywelly.service;
+
+import com.mywelly.model.Appointment.AppointmentStatus;
+import com.mywelly.model.Doctor;
+import com.mywelly.repository.AppointmentRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class SlotAvailabilityEngine {
+
+    public static final int SLOT_MINUTES = 30;
+
+    // 24h of 30-minute slots fit in the 48 low bits of one long per doctor per day
+    private static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    private static final LocalTime DEFAULT_OPEN = LocalTime.of(9, 0);
+    private static final LocalTime DEFAULT_CLOSE = LocalTime.of(17, 0);
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("H:mm");
+    private static final DateTimeFormatter SLOT_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final AppointmentRepository appointmentRepository;
+
+    // doctorId -> date -> bitset of booked slots
+    private final Map<Long, Map<LocalDate, Long>> booked = new ConcurrentHashMap<>();
+
+    private volatile boolean warm = false;
+
+    public SlotAvailabilityEngine(AppointmentRepository appointmentRepository) {
+        this.appointmentRepository = appointmentRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        booked.clear();
+        for (Object[] row : appointmentRepository.findBookedSlotsFrom(
+                AppointmentStatus.SCHEDULED, LocalDate.now().atStartOfDay())) {
+            LocalDateTime startsAt = (LocalDateTime) row[1];
+            mark((Long) row[0], startsAt.toLocalDate(), slotIndex(startsAt.toLocalTime()));
+        }
+        warm = true;
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    // The single check that a booking time is on the slot grid, returned as HH:mm. Off-grid times would share
+    // a bitmap slot while having distinct starts_at values under the active-slot unique key
+    public static String toSlotTime(String time) {
+        LocalTime parsed;
+        try {
+            parsed = LocalTime.parse(time.trim(), TIME_FORMAT);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid appointment time");
+        }
+        if (parsed.getMinute() % SLOT_MINUTES != 0) {
+            throw new RuntimeException("Appointments start every " + SLOT_MINUTES + " minutes");
+        }
+        return parsed.format(SLOT_FORMAT);
+    }
+
+    public boolean isWithinWorkingHours(Doctor doctor, String time) {
+        int slot = slotIndex(time);
+        int[] window = workingWindow(doctor);
+        return slot >= window[0] && slot < window[1];
+    }
+
+    public boolean isFree(Doctor doctor, LocalDate date, String time) {
+        int slot = slotIndex(time);
+        return slot >= 0 && (bits(doctor.getId(), date) & (1L << slot)) == 0;
+    }
+
+    // Atomically claims the slot; the claim is undone if the surrounding transaction rolls back
+    public boolean reserve(Doctor doctor, LocalDate date, String time) {
+        int slot = slotIndex(time);
+        if (slot < 0 || !mark(doctor.getId(), date, slot)) {
+            return false;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        unmark(doctor.getId(), date, slot);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    // Frees the slot once the surrounding transaction commits
+    public void release(Long doctorId, LocalDate date, String time) {
+        int slot = slotIndex(time);
+        if (slot < 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    unmark(doctorId, date, slot);
+                }
+            });
+        } else {
+            unmark(doctorId, date, slot);
+        }
+    }
+
+    public Map<LocalDate, List<String>> freeSlots(Doctor doctor, LocalDate from, int days) {
+        int[] window = workingWindow(doctor);
+        LocalDate today = LocalDate.now();
+        int nowSlot = (LocalTime.now().toSecondOfDay() / 60 + SLOT_MINUTES - 1) / SLOT_MINUTES;
+        Map<LocalDate, List<String>> result = new LinkedHashMap<>();
+        for (int d = 0; d < days; d++) {
+            LocalDate date = from.plusDays(d);
+            if (date.isBefore(today)) {
+                continue;
+            }
+            long taken = bits(doctor.getId(), date);
+            int first = date.equals(today) ? Math.max(window[0], nowSlot) : window[0];
+            List<String> free = new ArrayList<>();
+            for (int slot = first; slot < window[1]; slot++) {
+                if ((taken & (1L << slot)) == 0) {
+                    free.add(slotTime(slot));
+                }
+            }
+            result.put(date, free);
+        }
+        return result;
+    }
+
+    public List<String> workingSlots(Doctor doctor) {
+        int[] window = workingWindow(doctor);
+        List<String> slots = new ArrayList<>();
+        for (int slot = window[0]; slot < window[1]; slot++) {
+            slots.add(slotTime(slot));
+        }
+        return slots;
+    }
+
+    // Drops bitsets for days that can no longer be booked (runs nightly)
+    @Scheduled(cron = "0 5 0 * * *")
+    public void evictPastDays() {
+        LocalDate today = LocalDate.now();
+        booked.values().forEach(days -> days.keySet().removeIf(date -> date.isBefore(today)));
+        booked.values().removeIf(Map::isEmpty);
+    }
+
+    private long bits(Long doctorId, LocalDate date) {
+        Map<LocalDate, Long> days = booked.get(doctorId);
+        if (days == null) {
+            return 0L;
+        }
+        return days.getOrDefault(date, 0L);
+    }
+
+    private boolean mark(Long doctorId, LocalDate date, int slot) {
+        long mask = 1L << slot;
+        boolean[] claimed = new boolean[1];
+        booked.computeIfAbsent(doctorId, k -> new ConcurrentHashMap<>())
+                .compute(date, (k, current) -> {
+                    long value = current != null ? current : 0L;
+                    claimed[0] = (value & mask) == 0;
+                    return value | mask;
+                });
+        return claimed[0];
+    }
+
+    private void unmark(Long doctorId, LocalDate date, int slot) {
+        Map<LocalDate, Long> days = booked.get(doctorId);
+        if (days != null) {
+            days.computeIfPresent(date, (k, current) -> {
+                long value = current & ~(1L << slot);
+                return value == 0 ? null : value;
+            });
+        }
+    }
+
+    // Parses "9:00-17:00" into [firstSlot, endSlot); falls back to 9:00-17:00
+    private static int[] workingWindow(Doctor doctor) {
+        String hours = doctor.getWorkingHours();
+        if (hours != null) {
+            String[] parts = hours.split("-");
+            if (parts.length == 2) {
+                int open = slotIndex(parts[0]);
+                int close = slotIndex(parts[1]);
+                if (open >= 0 && close > open) {
+                    return new int[] {open, close};
+                }
+            }
+        }
+        return new int[] {DEFAULT_OPEN.toSecondOfDay() / 60 / SLOT_MINUTES,
+                DEFAULT_CLOSE.toSecondOfDay() / 60 / SLOT_MINUTES};
+    }
+
+    private static int slotIndex(String time) {
+        if (time == null) {
+            return -1;
+        }
+        try {
+            return slotIndex(LocalTime.parse(time.trim(), TIME_FORMAT));
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    private static int slotIndex(LocalTime time) {
+        return (time.getHour() * 60 + time.getMinute()) / SLOT_MINUTES;
+    }
+
+    private static String slotTime(int slot) {
+        return LocalTime.ofSecondOfDay((long) slot * SLOT_MINUTES * 60).format(SLOT_FORMAT);
+    }
+}
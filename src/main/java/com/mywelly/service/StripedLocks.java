@@ -0,0 +1,23 @@
+package com.mywelly.service;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+// Fixed pool of locks shared by hash, so unrelated keys rarely contend and memory stays bounded
+public class StripedLocks {
+
+    private final ReentrantLock[] stripes;
+
+    public StripedLocks(int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public ReentrantLock lockFor(Object key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return stripes[hash & (stripes.length - 1)];
+    }
+}
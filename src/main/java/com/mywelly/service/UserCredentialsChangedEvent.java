@@ -0,0 +1,12 @@
+package com.mywelly.service;
+
+import java.util.Collection;
+import java.util.List;
+
+// Published when anything a login depends on changes (email, password, lock state, deletion); consumed after commit
+public record UserCredentialsChangedEvent(Collection<String> emails) {
+
+    public UserCredentialsChangedEvent(String email) {
+        this(List.of(email));
+    }
+}
@@ -2,65 +2,90 @@ package com.mywelly.service;
 
 import com.mywelly.model.*;
 import com.mywelly.repository.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 @Transactional
 public class UserService {
 
+    private static final int LOGIN_FLUSH_CHUNK_SIZE = 500;
+
     private final UserRepository userRepository;
     private final PatientRepository patientRepository;
     private final DoctorRepository doctorRepository;
     private final LaboratoryRepository laboratoryRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transaction;
 
     public UserService(UserRepository userRepository,
                       PatientRepository patientRepository,
                       DoctorRepository doctorRepository,
                       LaboratoryRepository laboratoryRepository,
-                      PasswordEncoder passwordEncoder) {
+                      PasswordEncoder passwordEncoder,
+                      ApplicationEventPublisher eventPublisher,
+                      PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.patientRepository = patientRepository;
         this.doctorRepository = doctorRepository;
-        this.laboratoryRepository laboratoryRepository;
+        this.laboratoryRepository = laboratoryRepository;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
+        this.transaction = new TransactionTemplate(transactionManager);
     }
 
+    // Passwords are hashed before the transaction opens so no connection is held while BCrypt runs
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public User registerPatient(User user, Patient patient) {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         user.setUserRole(User.UserRole.PATIENT);
-        User savedUser = userRepository.save(user);
+        return transaction.execute(status -> {
+            User savedUser = userRepository.save(user);
 
-        patient.setUser(savedUser);
-        patientRepository.save(patient);
+            patient.setUser(savedUser);
+            patientRepository.save(patient);
 
-        return savedUser;
+            return savedUser;
+        });
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public User registerDoctor(User user, Doctor doctor) {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         user.setUserRole(User.UserRole.DOCTOR);
-        User savedUser = userRepository.save(user);
+        return transaction.execute(status -> {
+            User savedUser = userRepository.save(user);
 
-        doctor.setUser(savedUser);
-        doctorRepository.save(doctor);
+            doctor.setUser(savedUser);
+            doctorRepository.save(doctor);
+            eventPublisher.publishEvent(new DoctorChangedEvent(doctor));
 
-        return savedUser;
+            return savedUser;
+        });
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public User registerLaboratory(User user, Laboratory laboratory) {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         user.setUserRole(User.UserRole.LABORATORY);
-        User savedUser = userRepository.save(user);
+        return transaction.execute(status -> {
+            User savedUser = userRepository.save(user);
 
-        laboratory.setUser(savedUser);
-        laboratoryRepository.save(laboratory);
+            laboratory.setUser(savedUser);
+            laboratoryRepository.save(laboratory);
 
-        return savedUser;
+            return savedUser;
+        });
     }
 
     public Optional<User> findByEmail(String email) {
@@ -74,35 +99,47 @@ public class UserService {
     public void updateEmail(Long userId, String newEmail) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
+        String oldEmail = user.getEmail();
         user.setEmail(newEmail);
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserCredentialsChangedEvent(List.of(oldEmail, newEmail)));
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void updatePassword(Long userId, String newPassword) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        user.setPassword(passwordEncoder.encode(newPassword));
-        userRepository.save(user);
+        String encoded = passwordEncoder.encode(newPassword);
+        transaction.executeWithoutResult(status -> {
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+            user.setPassword(encoded);
+            userRepository.save(user);
+            eventPublisher.publishEvent(new UserCredentialsChangedEvent(user.getEmail()));
+        });
     }
 
     public void deleteUser(Long userId) {
-        userRepository.deleteById(userId);
-    }
-
-    public void recordFailedLogin(String email) {
-        userRepository.findByEmail(email).ifPresent(user -> {
-            user.setFailedLoginAttempts(user.getFailedLoginAttempts() + 1);
-            if (user.getFailedLoginAttempts() >= 5) {
-                user.setAccountLocked(true);
-            }
-            userRepository.save(user);
+        userRepository.findById(userId).ifPresent(user -> {
+            userRepository.delete(user);
+            eventPublisher.publishEvent(new UserCredentialsChangedEvent(user.getEmail()));
         });
     }
 
-    public void resetFailedLoginAttempts(String email) {
-        userRepository.findByEmail(email).ifPresent(user -> {
-            user.setFailedLoginAttempts(0);
-            userRepository.save(user);
+    // Write-behind from LoginAttemptTracker in one transaction, so a failed flush can be retried whole;
+    // resets go first so failures recorded after a successful login survive
+    public void applyLoginFailures(List<String> resetEmails, Map<Integer, List<String>> emailsByNewFailures,
+                                   int lockThreshold) {
+        for (int from = 0; from < resetEmails.size(); from += LOGIN_FLUSH_CHUNK_SIZE) {
+            userRepository.resetFailedLoginAttempts(
+                    resetEmails.subList(from, Math.min(from + LOGIN_FLUSH_CHUNK_SIZE, resetEmails.size())));
+        }
+        emailsByNewFailures.forEach((failures, emails) -> {
+            for (int from = 0; from < emails.size(); from += LOGIN_FLUSH_CHUNK_SIZE) {
+                userRepository.addFailedLoginAttempts(
+                        emails.subList(from, Math.min(from + LOGIN_FLUSH_CHUNK_SIZE, emails.size())),
+                        failures, lockThreshold);
+            }
+            // Any of these may have just been locked
+            eventPublisher.publishEvent(new UserCredentialsChangedEvent(emails));
         });
     }
 }
@@ -0,0 +1,24 @@
+package com.mywelly.session;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Bounds ThrottledSessionRepository's lookup memo to one request
+public class RequestSessionScopeFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        ThrottledSessionRepository.openRequestScope();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ThrottledSessionRepository.closeRequestScope();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.mywelly.session;
+
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// JDK serialization, deflated when the result is larger than the threshold (the security context shrinks
+// to about half). Serialized streams start with 0xACED and are read as is, so small and older rows still load.
+public class SessionAttributeCodec {
+
+    private static final byte STREAM_MAGIC_0 = (byte) 0xAC;
+    private static final byte STREAM_MAGIC_1 = (byte) 0xED;
+
+    private final SerializingConverter serializer = new SerializingConverter();
+    private final DeserializingConverter deserializer;
+    private final int compressionThreshold;
+
+    public SessionAttributeCodec(ClassLoader classLoader, int compressionThreshold) {
+        this.deserializer = new DeserializingConverter(classLoader);
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    public byte[] serialize(Object attribute) {
+        byte[] serialized = serializer.convert(attribute);
+        if (serialized.length <= compressionThreshold) {
+            return serialized;
+        }
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(serialized);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(serialized.length / 2);
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public Object deserialize(byte[] bytes) {
+        if (bytes.length >= 2 && bytes[0] == STREAM_MAGIC_0 && bytes[1] == STREAM_MAGIC_1) {
+            return deserializer.convert(bytes);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 2);
+            byte[] buffer = new byte[1024];
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(buffer);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated session attribute");
+                }
+                out.write(buffer, 0, inflated);
+            }
+            return deserializer.convert(out.toByteArray());
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Unreadable session attribute", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.mywelly.session;
+
+import com.mywelly.monitoring.RequestQueryStatistics;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.Session;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Wraps the shared (database) session repository so an ordinary request costs one SELECT and no writes:
+//  - the last-access time is only written once it has moved by touch-interval, so sessions may expire up to
+//    that much early;
+//  - a session nothing changed in is not saved (the JDBC repository would still open a transaction);
+//  - lookups are memoized for the duration of a request (SessionRepositoryFilter looks the session up
+//    again after saving it), see openRequestScope().
+// Relies on spring.session.jdbc.save-mode=on-set-attribute: only setAttribute/removeAttribute mark a session dirty.
+public class ThrottledSessionRepository<S extends Session>
+        implements FindByIndexNameSessionRepository<ThrottledSessionRepository.ThrottledSession<S>> {
+
+    private static final ThreadLocal<Map<String, ThrottledSession<?>>> REQUEST_SESSIONS = new ThreadLocal<>();
+
+    private final FindByIndexNameSessionRepository<S> delegate;
+    private final Duration touchInterval;
+
+    public ThrottledSessionRepository(FindByIndexNameSessionRepository<S> delegate, Duration touchInterval) {
+        this.delegate = delegate;
+        this.touchInterval = touchInterval;
+    }
+
+    static void openRequestScope() {
+        REQUEST_SESSIONS.set(new HashMap<>());
+    }
+
+    static void closeRequestScope() {
+        REQUEST_SESSIONS.remove();
+    }
+
+    @Override
+    public ThrottledSession<S> createSession() {
+        ThrottledSession<S> session = new ThrottledSession<>(delegate.createSession(), touchInterval);
+        session.dirty = true;
+        return session;
+    }
+
+    @Override
+    public void save(ThrottledSession<S> session) {
+        if (session.dirty) {
+            RequestQueryStatistics.excluding(() -> {
+                delegate.save(session.delegate);
+                return null;
+            });
+            session.dirty = false;
+        }
+        Map<String, ThrottledSession<?>> requestSessions = REQUEST_SESSIONS.get();
+        if (requestSessions != null) {
+            requestSessions.put(session.getId(), session);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ThrottledSession<S> findById(String id) {
+        Map<String, ThrottledSession<?>> requestSessions = REQUEST_SESSIONS.get();
+        if (requestSessions != null && requestSessions.containsKey(id)) {
+            ThrottledSession<S> session = (ThrottledSession<S>) requestSessions.get(id);
+            // Absent, or renamed by changeSessionId() since it was memoized
+            return session != null && session.getId().equals(id) ? session : null;
+        }
+        S loaded = RequestQueryStatistics.excluding(() -> delegate.findById(id));
+        ThrottledSession<S> session = loaded != null ? new ThrottledSession<>(loaded, touchInterval) : null;
+        if (requestSessions != null) {
+            requestSessions.put(id, session);
+        }
+        return session;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        Map<String, ThrottledSession<?>> requestSessions = REQUEST_SESSIONS.get();
+        if (requestSessions != null) {
+            requestSessions.put(id, null);
+        }
+        RequestQueryStatistics.excluding(() -> {
+            delegate.deleteById(id);
+            return null;
+        });
+    }
+
+    @Override
+    public Map<String, ThrottledSession<S>> findByIndexNameAndIndexValue(String indexName, String indexValue) {
+        Map<String, ThrottledSession<S>> sessions = new LinkedHashMap<>();
+        RequestQueryStatistics.excluding(() -> delegate.findByIndexNameAndIndexValue(indexName, indexValue))
+                .forEach((id, session) -> sessions.put(id, new ThrottledSession<>(session, touchInterval)));
+        return sessions;
+    }
+
+    public static final class ThrottledSession<S extends Session> implements Session {
+
+        private final S delegate;
+        private final Duration touchInterval;
+        private boolean dirty;
+
+        ThrottledSession(S delegate, Duration touchInterval) {
+            this.delegate = delegate;
+            this.touchInterval = touchInterval;
+        }
+
+        @Override
+        public String getId() {
+            return delegate.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            dirty = true;
+            return delegate.changeSessionId();
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            return delegate.getAttribute(attributeName);
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return delegate.getAttributeNames();
+        }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            dirty = true;
+            delegate.setAttribute(attributeName, attributeValue);
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            dirty = true;
+            delegate.removeAttribute(attributeName);
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return delegate.getCreationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            if (Duration.between(delegate.getLastAccessedTime(), lastAccessedTime).compareTo(touchInterval) >= 0) {
+                dirty = true;
+                delegate.setLastAccessedTime(lastAccessedTime);
+            }
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return delegate.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            dirty = true;
+            delegate.setMaxInactiveInterval(interval);
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return delegate.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return delegate.isExpired();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.mywelly.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Actuator on its own loopback port: health is public, the rest only for allowed addresses
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "mywelly.management.allowed-addresses=127.0.0.1")
+@ActiveProfiles("test")
+class ActuatorAccessTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int serverPort;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Test
+    void metricsAreServedOnlyOnTheManagementPort() throws Exception {
+        assertThat(managementPort).isNotEqualTo(serverPort);
+
+        // Tests run without the Prometheus registry, so the metrics endpoint stands in for the scrape
+        HttpResponse<String> metrics = get(managementPort, "/actuator/metrics");
+        assertThat(metrics.statusCode()).isEqualTo(200);
+        assertThat(metrics.body()).contains("mywelly.");
+
+        // Even from an allowed address, the application port has no actuator endpoints
+        assertThat(get(serverPort, "/actuator/prometheus").statusCode()).isEqualTo(404);
+        assertThat(get(serverPort, "/actuator/metrics").statusCode()).isEqualTo(404);
+        assertThat(get(serverPort, "/actuator/health").statusCode()).isEqualTo(404);
+    }
+
+    @Test
+    void addressesOutsideTheListAreSentToTheLoginPage() throws Exception {
+        // 127.0.0.2 reaches the loopback-bound port but is not in this test's list
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), managementPort,
+                InetAddress.getByName("127.0.0.2"), 0)) {
+            socket.getOutputStream().write(("GET /actuator/metrics HTTP/1.1\r\nHost: localhost\r\n"
+                    + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            String statusLine = new BufferedReader(new InputStreamReader(
+                    socket.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+            assertThat(statusLine).startsWith("HTTP/1.1 302");
+        }
+    }
+
+    @Test
+    void healthAnswersWithoutLogin() throws Exception {
+        // UP or DOWN depending on the mail server, but never a login redirect
+        assertThat(get(managementPort, "/actuator/health").statusCode()).isIn(200, 503);
+    }
+
+    private HttpResponse<String> get(int port, String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,109 @@
+package com.mywelly.config;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConnectionConcurrencyGuardTest {
+
+    private static final int MAX_CONCURRENCY = 10;
+    private static final int CALLERS = 400;
+    private static final int THREADS = 100;
+
+    private final DataSource pool = mock(DataSource.class);
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger maxOpen = new AtomicInteger();
+
+    @Test
+    void neverHasMoreConnectionsOutThanPermits() throws Exception {
+        trackCheckouts();
+        ConnectionConcurrencyGuard guard = new ConnectionConcurrencyGuard(pool, MAX_CONCURRENCY, 30_000);
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> attempts = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                attempts.add(callers.submit(() -> {
+                    start.await();
+                    try (Connection connection = guard.getConnection()) {
+                        Thread.sleep(2);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> attempt : attempts) {
+                attempt.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertThat(maxOpen.get()).isEqualTo(MAX_CONCURRENCY);
+        assertThat(open.get()).isZero();
+        assertThat(guard.getAvailablePermits()).isEqualTo(MAX_CONCURRENCY);
+    }
+
+    @Test
+    void waitsUpToTheTimeoutThenFails() throws Exception {
+        trackCheckouts();
+        ConnectionConcurrencyGuard guard = new ConnectionConcurrencyGuard(pool, 1, 50);
+
+        try (Connection held = guard.getConnection()) {
+            assertThatThrownBy(guard::getConnection)
+                    .isInstanceOf(SQLTransientConnectionException.class)
+                    .hasMessageContaining("50 ms");
+        }
+        guard.getConnection().close();
+        assertThat(guard.getAvailablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void closingTwiceReturnsOnePermit() throws Exception {
+        trackCheckouts();
+        ConnectionConcurrencyGuard guard = new ConnectionConcurrencyGuard(pool, 2, 50);
+
+        Connection connection = guard.getConnection();
+        connection.close();
+        connection.close();
+
+        assertThat(guard.getAvailablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    void permitIsReturnedWhenThePoolFails() throws Exception {
+        when(pool.getConnection()).thenThrow(new SQLTransientConnectionException("pool exhausted"));
+        ConnectionConcurrencyGuard guard = new ConnectionConcurrencyGuard(pool, 1, 50);
+
+        assertThatThrownBy(guard::getConnection).hasMessage("pool exhausted");
+        assertThat(guard.getAvailablePermits()).isEqualTo(1);
+    }
+
+    // Every checkout from the mocked pool counts as open until its connection is closed
+    private void trackCheckouts() throws SQLException {
+        when(pool.getConnection()).thenAnswer(invocation -> {
+            maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+            Connection connection = mock(Connection.class);
+            doAnswer(close -> open.decrementAndGet()).when(connection).close();
+            return connection;
+        });
+    }
+}
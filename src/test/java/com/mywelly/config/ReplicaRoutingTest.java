@@ -0,0 +1,84 @@
+package com.mywelly.config;
+
+import com.mywelly.MyWellyApplication;
+import com.mywelly.model.User.UserRole;
+import com.mywelly.security.AuthenticatedUser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
+
+// A request that reads in a read-only transaction and then writes must still write to the primary
+class ReplicaRoutingTest {
+
+    private static final String COUNT_APPOINTMENTS = "SELECT COUNT(*) FROM appointments";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void bookingAfterReadOnlyDoctorLookupWritesToPrimary() throws Exception {
+        String primaryUrl = "jdbc:h2:mem:primary-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        String replicaUrl = "jdbc:h2:mem:replica-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+
+        // Schema and sample data on the primary, copied to the replica as replication would
+        start(primaryUrl, null).close();
+        String dump = tempDir.resolve("primary.sql").toString().replace('\\', '/');
+        jdbc(primaryUrl).execute("SCRIPT TO '" + dump + "'");
+        jdbc(replicaUrl).execute("RUNSCRIPT FROM '" + dump + "'");
+
+        try (ConfigurableApplicationContext context = start(primaryUrl, replicaUrl)) {
+            JdbcTemplate primary = jdbc(primaryUrl);
+            Long doctorId = primary.queryForObject("SELECT MIN(id) FROM doctors", Long.class);
+            Long patientId = primary.queryForObject("SELECT MIN(id) FROM patients", Long.class);
+            Long userId = primary.queryForObject("SELECT user_id FROM patients WHERE id = ?", Long.class, patientId);
+            AuthenticatedUser principal = new AuthenticatedUser(userId, "patient@test.com", "",
+                    UserRole.PATIENT, patientId);
+
+            MockMvc mockMvc = webAppContextSetup((WebApplicationContext) context).apply(springSecurity()).build();
+            mockMvc.perform(post("/appointment/book/{doctorId}", doctorId)
+                            .param("date", LocalDate.now().plusDays(2).toString())
+                            .param("time", "10:00")
+                            .with(user(principal))
+                            .with(csrf()))
+                    .andExpect(redirectedUrl("/patient/dashboard"));
+
+            assertThat(primary.queryForObject(COUNT_APPOINTMENTS, Long.class)).isEqualTo(1);
+            assertThat(jdbc(replicaUrl).queryForObject(COUNT_APPOINTMENTS, Long.class)).isZero();
+        }
+    }
+
+    // Without the second-level cache, so the doctor lookup reaches the database (and closing the context leaves
+    // the JVM-wide cache manager of other contexts alone)
+    private static ConfigurableApplicationContext start(String url, String replicaUrls) {
+        List<String> args = new ArrayList<>(List.of("--server.port=0", "--spring.datasource.url=" + url,
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=false"));
+        if (replicaUrls != null) {
+            args.add("--mywelly.datasource.replica.urls=" + replicaUrls);
+        }
+        return new SpringApplicationBuilder(MyWellyApplication.class).profiles("test").run(args.toArray(new String[0]));
+    }
+
+    private static JdbcTemplate jdbc(String url) {
+        return new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+    }
+}
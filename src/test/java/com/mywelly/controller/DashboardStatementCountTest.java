@@ -0,0 +1,121 @@
+package com.mywelly.controller;
+
+import com.mywelly.model.Doctor;
+import com.mywelly.model.Patient;
+import com.mywelly.model.User;
+import com.mywelly.model.User.UserRole;
+import com.mywelly.repository.DoctorRepository;
+import com.mywelly.security.AuthenticatedUser;
+import com.mywelly.service.AppointmentService;
+import com.mywelly.service.ReviewService;
+import com.mywelly.service.UserService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Dashboards must issue the same number of statements whatever the number of rows they render
+@SpringBootTest
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+@ActiveProfiles("test")
+class DashboardStatementCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Test
+    void patientDashboardDoesNotLoadDoctorsPerAppointment() throws Exception {
+        List<Doctor> doctors = doctorRepository.findAll();
+        Patient patient = registerPatient("n1.patient@test.com");
+        AuthenticatedUser principal = new AuthenticatedUser(patient.getUser().getId(), patient.getUser().getEmail(),
+                "", UserRole.PATIENT, patient.getId());
+        LocalDate date = LocalDate.now().plusDays(3);
+
+        appointmentService.createAppointment(patient, doctors.get(0), date, "10:00");
+        long withOne = statements("/patient/dashboard", principal);
+        for (int i = 1; i < 6; i++) {
+            appointmentService.createAppointment(patient, doctors.get(i), date, "11:00");
+        }
+        long withSix = statements("/patient/dashboard", principal);
+
+        assertThat(withSix).isEqualTo(withOne).isPositive().isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void doctorDashboardDoesNotLoadPatientsPerRow() throws Exception {
+        Doctor doctor = doctorRepository.findAll().get(1);
+        AuthenticatedUser principal = new AuthenticatedUser(doctor.getUser().getId(), "doctor", "",
+                UserRole.DOCTOR, doctor.getId());
+        LocalDate date = LocalDate.now().plusDays(4);
+
+        book(doctor, date, 0);
+        long withOne = statements("/doctor/dashboard", principal);
+        for (int i = 1; i < 6; i++) {
+            book(doctor, date, i);
+        }
+        long withSix = statements("/doctor/dashboard", principal);
+
+        assertThat(withSix).isEqualTo(withOne).isPositive().isLessThanOrEqualTo(3);
+    }
+
+    // One appointment and one review by a new patient each time
+    private void book(Doctor doctor, LocalDate date, int i) {
+        Patient patient = registerPatient("n1.doctor" + i + "@test.com");
+        appointmentService.createAppointment(patient, doctor, date, String.format("%02d:00", 9 + i));
+        reviewService.createReviewForDoctor(patient, doctor, 5, "Review " + i);
+    }
+
+    private Patient registerPatient(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("password123");
+        Patient patient = new Patient();
+        patient.setFullName("Patient " + email);
+        patient.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        patient.setGender("Female");
+        patient.setIdNumber(email);
+        patient.setPhoneNumber("+212600000000");
+        patient.setUsername(email);
+        userService.registerPatient(user, patient);
+        return patient;
+    }
+
+    private long statements(String uri, AuthenticatedUser principal) throws Exception {
+        double before = totalStatements(uri);
+        mockMvc.perform(get(uri).with(user(principal))).andExpect(status().isOk());
+        return Math.round(totalStatements(uri) - before);
+    }
+
+    private double totalStatements(String uri) {
+        DistributionSummary summary = meterRegistry.find("mywelly.http.sql.statements").tag("uri", uri).summary();
+        return summary != null ? summary.totalAmount() : 0;
+    }
+}
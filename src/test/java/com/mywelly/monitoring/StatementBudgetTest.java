@@ -0,0 +1,81 @@
+package com.mywelly.monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "mywelly.sql.budget.enforce=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StatementBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void handlerWithinBudgetSucceeds() throws Exception {
+        mockMvc.perform(get("/test/budget/within").with(user("patient@test.com")))
+                .andExpect(status().isOk())
+                .andExpect(content().string("2"));
+    }
+
+    @Test
+    void handlerOverBudgetFailsBeforeTheResponseIsWritten() {
+        assertThatThrownBy(() -> mockMvc.perform(get("/test/budget/over").with(user("patient@test.com"))))
+                .rootCause()
+                .hasMessage("GET /test/budget/over issued 3 statements, over its budget of 2");
+    }
+
+    @TestConfiguration
+    static class BudgetedHandlers {
+
+        @Bean
+        BudgetedController budgetedController(DataSource dataSource) {
+            return new BudgetedController(new JdbcTemplate(dataSource));
+        }
+    }
+
+    @RestController
+    @StatementBudget(2)
+    static class BudgetedController {
+
+        private final JdbcTemplate jdbc;
+
+        BudgetedController(JdbcTemplate jdbc) {
+            this.jdbc = jdbc;
+        }
+
+        @GetMapping("/test/budget/within")
+        String within() {
+            return String.valueOf(select(2));
+        }
+
+        @GetMapping("/test/budget/over")
+        String over() {
+            return String.valueOf(select(3));
+        }
+
+        private int select(int statements) {
+            for (int i = 0; i < statements; i++) {
+                jdbc.queryForObject("SELECT 1", Integer.class);
+            }
+            return statements;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.mywelly.repository;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The finders' predicates, EXPLAINed on H2: each must be served by the index declared for it
+@SpringBootTest
+@ActiveProfiles("test")
+class IndexUsageTest {
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource(delimiter = '|', value = {
+            "idx_doctors_specialty_rating | SELECT id FROM doctors WHERE specialty = 'Cardiology' ORDER BY average_rating DESC, id",
+            "idx_doctors_location_rating | SELECT id FROM doctors WHERE location = 'Rabat' ORDER BY average_rating DESC, id",
+            "idx_doctors_fee | SELECT id FROM doctors WHERE consultation_fee BETWEEN 100 AND 300",
+            "idx_laboratories_location_rating | SELECT id FROM laboratories WHERE location = 'Rabat' ORDER BY average_rating DESC, id",
+            "idx_reviews_doctor_created | SELECT id FROM reviews WHERE doctor_id = 1 ORDER BY created_at DESC, id DESC",
+            "idx_reviews_lab_created | SELECT id FROM reviews WHERE lab_id = 1 ORDER BY created_at DESC, id DESC",
+            "idx_reviews_patient | SELECT id FROM reviews WHERE patient_id = 1",
+            "idx_appointments_doctor_starts_status | SELECT id FROM appointments WHERE doctor_id = 1 AND starts_at >= TIMESTAMP '2026-01-01 00:00:00' AND status = 'SCHEDULED' ORDER BY starts_at",
+            "idx_appointments_patient_status_starts | SELECT id FROM appointments WHERE patient_id = 1 AND status = 'SCHEDULED' ORDER BY starts_at",
+            "idx_appointments_status_starts_at | SELECT id FROM appointments WHERE status = 'SCHEDULED' AND starts_at < TIMESTAMP '2026-01-01 00:00:00'",
+            "idx_email_outbox_status_next | SELECT id FROM email_outbox WHERE status IN ('PENDING', 'SENDING') AND next_attempt_at <= TIMESTAMP '2026-01-01 00:00:00' ORDER BY next_attempt_at, id"
+    })
+    void finderUsesItsIndex(String index, String query) {
+        String plan = jdbc.queryForObject("EXPLAIN " + query, String.class);
+        assertThat(plan).containsIgnoringCase(index);
+    }
+}
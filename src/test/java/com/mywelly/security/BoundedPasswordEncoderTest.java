@@ -0,0 +1,102 @@
+package com.mywelly.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedPasswordEncoderTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(5, 1, 1, meterRegistry);
+
+    @AfterEach
+    void shutdown() {
+        encoder.shutdown();
+    }
+
+    @Test
+    void fullQueueIsRejectedWithoutWaiting() throws Exception {
+        try (HashingQueueFiller filler = HashingQueueFiller.fill(encoder, meterRegistry)) {
+            assertThatThrownBy(() -> encoder.matches("password123", filler.hash()))
+                    .isInstanceOf(PasswordHashingBusyException.class);
+            assertThat(meterRegistry.get("mywelly.password.hashing.rejected").counter().count()).isEqualTo(1);
+        }
+
+        // The blocked hashes finish once released and the pool takes work again
+        String hash = encoder.encode("password123");
+        assertThat(encoder.matches("password123", hash)).isTrue();
+    }
+
+    @Test
+    void anyCostOtherThanTheConfiguredOneIsUpgraded() {
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password123"))).isTrue();
+        // Lowering the cost is an upgrade too
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password123"))).isTrue();
+        assertThat(encoder.upgradeEncoding(encoder.encode("password123"))).isFalse();
+        assertThat(encoder.upgradeEncoding("{noop}password123")).isFalse();
+        assertThat(encoder.upgradeEncoding(null)).isFalse();
+    }
+
+    // Occupies the single hashing thread and the single queue slot until closed
+    static final class HashingQueueFiller implements AutoCloseable {
+
+        private final CompletableFuture<Void> release = new CompletableFuture<>();
+        private final CompletableFuture<Void> running = new CompletableFuture<>();
+        private final CompletableFuture<?>[] blocked = new CompletableFuture<?>[2];
+        private final String hash = new BCryptPasswordEncoder(4).encode("password123");
+
+        static HashingQueueFiller fill(BoundedPasswordEncoder encoder, MeterRegistry meterRegistry) throws Exception {
+            HashingQueueFiller filler = new HashingQueueFiller();
+            filler.blocked[0] = CompletableFuture.runAsync(() -> encoder.encode(filler.new BlockingPassword()));
+            filler.running.get();
+            filler.blocked[1] = CompletableFuture.runAsync(() -> encoder.encode(filler.new BlockingPassword()));
+            while (meterRegistry.get("mywelly.password.hashing.queue").gauge().value() < 1) {
+                Thread.sleep(5);
+            }
+            return filler;
+        }
+
+        String hash() {
+            return hash;
+        }
+
+        @Override
+        public void close() throws Exception {
+            release.complete(null);
+            CompletableFuture.allOf(blocked).get();
+        }
+
+        // BCrypt reads the raw password on the hashing thread, which parks it here
+        private final class BlockingPassword implements CharSequence {
+
+            @Override
+            public String toString() {
+                running.complete(null);
+                release.join();
+                return "password123";
+            }
+
+            @Override
+            public int length() {
+                return toString().length();
+            }
+
+            @Override
+            public char charAt(int index) {
+                return toString().charAt(index);
+            }
+
+            @Override
+            public CharSequence subSequence(int start, int end) {
+                return toString().subSequence(start, end);
+            }
+        }
+    }
+}
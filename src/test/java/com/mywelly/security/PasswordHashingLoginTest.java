@@ -0,0 +1,95 @@
+package com.mywelly.security;
+
+import com.mywelly.model.Patient;
+import com.mywelly.model.User;
+import com.mywelly.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.authenticated;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// One hashing thread and one queue slot, so two blocked hashes saturate the encoder
+@SpringBootTest(properties = {
+        "mywelly.security.hashing.threads=1",
+        "mywelly.security.hashing.queue-capacity=1"
+})
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+@ActiveProfiles("test")
+class PasswordHashingLoginTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private String email;
+
+    @BeforeEach
+    void register() {
+        email = "hashing-" + UUID.randomUUID() + "@test.com";
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("password123");
+        Patient patient = new Patient();
+        patient.setFullName("Hashing Patient");
+        patient.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        patient.setGender("Female");
+        patient.setIdNumber(email);
+        patient.setPhoneNumber("+212600000000");
+        patient.setUsername(email);
+        userService.registerPatient(user, patient);
+    }
+
+    @Test
+    void loginIsAnswered503WithRetryAfterWhileTheHashingQueueIsFull() throws Exception {
+        try (BoundedPasswordEncoderTest.HashingQueueFiller filler =
+                     BoundedPasswordEncoderTest.HashingQueueFiller.fill(passwordEncoder, meterRegistry)) {
+            mockMvc.perform(formLogin("/login").user(email).password("password123"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"));
+        }
+
+        mockMvc.perform(formLogin("/login").user(email).password("password123")).andExpect(authenticated());
+    }
+
+    @Test
+    void hashWithAnotherCostIsReplacedOnLogin() throws Exception {
+        // As stored before mywelly.security.bcrypt.strength was raised to its current value
+        jdbc.update("UPDATE users SET password = ? WHERE email = ?",
+                new BCryptPasswordEncoder(4).encode("password123"), email);
+
+        mockMvc.perform(formLogin("/login").user(email).password("password123")).andExpect(authenticated());
+
+        String stored = jdbc.queryForObject("SELECT password FROM users WHERE email = ?", String.class, email);
+        assertThat(stored).doesNotStartWith("$2a$04$");
+        assertThat(passwordEncoder.upgradeEncoding(stored)).isFalse();
+        assertThat(passwordEncoder.matches("password123", stored)).isTrue();
+        mockMvc.perform(formLogin("/login").user(email).password("password123")).andExpect(authenticated());
+    }
+}
@@ -0,0 +1,76 @@
+package com.mywelly.security;
+
+import com.mywelly.model.Patient;
+import com.mywelly.model.User;
+import com.mywelly.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.authenticated;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.unauthenticated;
+
+// Accounts changed by another node (straight in the database, no invalidation event here) must not log in from the cache
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserDetailsCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private String email;
+
+    @BeforeEach
+    void registerAndLogIn() throws Exception {
+        email = "cache-" + UUID.randomUUID() + "@test.com";
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("password123");
+        Patient patient = new Patient();
+        patient.setFullName("Cache Patient");
+        patient.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        patient.setGender("Female");
+        patient.setIdNumber(email);
+        patient.setPhoneNumber("+212600000000");
+        patient.setUsername(email);
+        userService.registerPatient(user, patient);
+
+        // Puts the account in the cache
+        mockMvc.perform(formLogin("/login").user(email).password("password123")).andExpect(authenticated());
+    }
+
+    @Test
+    void oldPasswordFailsAfterChangeOnAnotherNode() throws Exception {
+        jdbc.update("UPDATE users SET password = ? WHERE email = ?", passwordEncoder.encode("changed456"), email);
+
+        mockMvc.perform(formLogin("/login").user(email).password("password123")).andExpect(unauthenticated());
+        mockMvc.perform(formLogin("/login").user(email).password("changed456")).andExpect(authenticated());
+    }
+
+    @Test
+    void lockedAccountFailsAfterLockOnAnotherNode() throws Exception {
+        jdbc.update("UPDATE users SET account_locked = TRUE WHERE email = ?", email);
+
+        mockMvc.perform(formLogin("/login").user(email).password("password123")).andExpect(unauthenticated());
+    }
+}
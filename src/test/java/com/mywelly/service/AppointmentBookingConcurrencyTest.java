@@ -0,0 +1,255 @@
+package com.mywelly.service;
+
+import com.mywelly.model.Appointment.AppointmentStatus;
+import com.mywelly.model.Doctor;
+import com.mywelly.model.Patient;
+import com.mywelly.repository.AppointmentRepository;
+import com.mywelly.repository.DoctorRepository;
+import com.mywelly.repository.PatientRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AppointmentBookingConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final int CONTENDERS_PER_SLOT = 8;
+    private static final int DAYS = 4;
+    private static final int NODES = 4;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void exactlyOneOfManyConcurrentBookingsForASlotSucceeds() throws Exception {
+        Doctor doctor = doctorRepository.findAll().get(0);
+        Patient patient = patientRepository.findAll().get(0);
+        LocalDate date = LocalDate.now().plusDays(7);
+
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> attempts = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                // Mixes equivalent spellings of the same slot
+                String time = i % 2 == 0 ? "10:00" : "10:00 ";
+                attempts.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        appointmentService.createAppointment(patient, doctor, date, time);
+                        booked.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> attempt : attempts) {
+                attempt.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(booked.get()).isEqualTo(1);
+        assertThat(rejected.get()).isEqualTo(THREADS - 1);
+        assertThat(appointmentRepository.findByDoctorAndStartsAtAndStatus(
+                doctor, date.atTime(10, 0), AppointmentStatus.SCHEDULED)).hasSize(1);
+    }
+
+    @Test
+    void thousandsOfBookingsAcrossAllSlotsLeaveOneWinnerPerSlot() throws Exception {
+        List<Slot> slots = slotsFrom(LocalDate.now().plusDays(40));
+        Patient patient = patientRepository.findAll().get(0);
+
+        int booked = contend(slots, (slot, attempt) ->
+                appointmentService.createAppointment(patient, slot.doctor(), slot.date(), slot.time()));
+
+        assertThat(slots.size() * CONTENDERS_PER_SLOT).isGreaterThan(2000);
+        assertThat(booked).isEqualTo(slots.size());
+        assertOneScheduledPerSlot(slots);
+    }
+
+    @Test
+    void nodesWithSeparateLocksAndEnginesLeaveOneWinnerPerSlot() throws Exception {
+        List<Slot> slots = slotsFrom(LocalDate.now().plusDays(50));
+        Patient patient = patientRepository.findAll().get(0);
+        // Each node warms its own engine before any booking, so every node admits the first
+        // contender it sees for a slot and only the active-slot unique key settles cross-node races
+        List<AppointmentService> nodes = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            nodes.add(node(true));
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        int booked = contend(slots, (slot, attempt) -> transaction.execute(status ->
+                nodes.get(attempt % NODES).createAppointment(patient, slot.doctor(), slot.date(), slot.time())));
+
+        assertThat(booked).isEqualTo(slots.size());
+        assertOneScheduledPerSlot(slots);
+    }
+
+    @Test
+    void coldNodesWithSeparateLocksLeaveOneWinnerPerSlot() throws Exception {
+        List<Slot> slots = slotsFrom(LocalDate.now().plusDays(60));
+        Patient patient = patientRepository.findAll().get(0);
+        List<AppointmentService> nodes = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            nodes.add(node(false));
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        int booked = contend(slots, (slot, attempt) -> transaction.execute(status ->
+                nodes.get(attempt % NODES).createAppointment(patient, slot.doctor(), slot.date(), slot.time())));
+
+        assertThat(booked).isEqualTo(slots.size());
+        assertOneScheduledPerSlot(slots);
+    }
+
+    @Test
+    void uniqueKeyRejectsABookingTheLocalEngineHasNotSeen() {
+        Doctor doctor = doctorRepository.findAll().get(0);
+        Patient patient = patientRepository.findAll().get(0);
+        LocalDate date = LocalDate.now().plusDays(70);
+        AppointmentService first = node(true);
+        AppointmentService second = node(true);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.execute(status -> first.createAppointment(patient, doctor, date, "10:30"));
+
+        // The second node's bitmap still shows the slot as free, so the insert reaches the database
+        assertThatThrownBy(() -> transaction.execute(status ->
+                second.createAppointment(patient, doctor, date, "10:30")))
+                .hasMessage("Time slot already booked");
+        assertThat(second.getBookingConflictsTotal()).isEqualTo(1);
+        assertThat(appointmentRepository.findByDoctorAndStartsAtAndStatus(
+                doctor, date.atTime(10, 30), AppointmentStatus.SCHEDULED)).hasSize(1);
+    }
+
+    @Test
+    void offGridTimesAreRejectedBeforeAnySlotIsClaimed() {
+        Doctor doctor = doctorRepository.findAll().get(0);
+        Patient patient = patientRepository.findAll().get(0);
+        LocalDate date = LocalDate.now().plusDays(8);
+
+        assertThatThrownBy(() -> appointmentService.createAppointment(patient, doctor, date, "11:15"))
+                .hasMessageContaining("every 30 minutes");
+        // 11:00 is still free, in the bitmap and in the database
+        appointmentService.createAppointment(patient, doctor, date, "11:00");
+        assertThat(appointmentRepository.findByDoctorAndStartsAtAndStatus(
+                doctor, date.atTime(11, 0), AppointmentStatus.SCHEDULED)).hasSize(1);
+    }
+
+    private AppointmentService node(boolean warm) {
+        SlotAvailabilityEngine engine = new SlotAvailabilityEngine(appointmentRepository);
+        if (warm) {
+            engine.load();
+        }
+        return new AppointmentService(appointmentRepository, patientService, engine,
+                emailOutboxService, eventPublisher, transactionManager);
+    }
+
+    private List<Slot> slotsFrom(LocalDate firstDay) {
+        List<Slot> slots = new ArrayList<>();
+        for (Doctor doctor : doctorRepository.findAll()) {
+            for (int day = 0; day < DAYS; day++) {
+                for (String time : appointmentService.getWorkingSlots(doctor)) {
+                    slots.add(new Slot(doctor, firstDay.plusDays(day), time));
+                }
+            }
+        }
+        return slots;
+    }
+
+    // Submits every slot CONTENDERS_PER_SLOT times in interleaved order and returns the number of successes
+    private int contend(List<Slot> slots, Booking booking) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger booked = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> attempts = new ArrayList<>();
+            for (int attempt = 0; attempt < CONTENDERS_PER_SLOT; attempt++) {
+                for (Slot slot : slots) {
+                    int contender = attempt;
+                    attempts.add(pool.submit(() -> {
+                        start.await();
+                        try {
+                            booking.book(slot, contender);
+                            booked.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            assertThat(e).hasMessage("Time slot already booked");
+                        }
+                        return null;
+                    }));
+                }
+            }
+            start.countDown();
+            for (Future<?> attempt : attempts) {
+                attempt.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return booked.get();
+    }
+
+    private void assertOneScheduledPerSlot(List<Slot> slots) {
+        for (Slot slot : slots) {
+            assertThat(appointmentRepository.findByDoctorAndStartsAtAndStatus(slot.doctor(),
+                    slot.date().atTime(LocalTime.parse(slot.time())), AppointmentStatus.SCHEDULED))
+                    .as("%s on %s at %s", slot.doctor().getId(), slot.date(), slot.time())
+                    .hasSize(1);
+        }
+    }
+
+    private record Slot(Doctor doctor, LocalDate date, String time) {
+    }
+
+    private interface Booking {
+        void book(Slot slot, int attempt);
+    }
+}
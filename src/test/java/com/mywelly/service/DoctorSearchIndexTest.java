@@ -0,0 +1,121 @@
+package com.mywelly.service;
+
+import com.mywelly.model.Doctor;
+import com.mywelly.repository.DoctorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DoctorSearchIndexTest {
+
+    private static final String[] SPECIALTIES = {"Cardiology", "Dermatology", "Pediatrics", "Neurology"};
+    private static final String[] LOCATIONS = {"Casablanca", "Rabat", "Marrakech"};
+    private static final Comparator<Doctor> RESULT_ORDER = Comparator
+            .comparing(Doctor::getAverageRating).reversed()
+            .thenComparing(Doctor::getId);
+
+    private final DoctorRepository doctorRepository = mock(DoctorRepository.class);
+    private final DoctorSearchIndex index = new DoctorSearchIndex(doctorRepository);
+    private final List<Doctor> all = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(7);
+        for (long id = 1; id <= 2000; id++) {
+            // Few distinct ratings, so ties are broken by id
+            all.add(doctor(id, "Dr Name" + (id % 97), SPECIALTIES[random.nextInt(SPECIALTIES.length)],
+                    LOCATIONS[random.nextInt(LOCATIONS.length)], 100.0 + random.nextInt(20) * 50,
+                    random.nextInt(11) / 2.0));
+        }
+        when(doctorRepository.findAll()).thenReturn(all);
+        index.load();
+    }
+
+    @Test
+    void pagesThroughBroadAndNarrowQueriesInRatingOrder() {
+        assertPagesMatch(null, null, null, null, null);
+        assertPagesMatch(null, "Cardiology", null, null, null);
+        assertPagesMatch(null, "Pediatrics", "Rabat", 200.0, 600.0);
+        assertPagesMatch("name4", null, null, null, null);
+        assertPagesMatch("name42", "Neurology", null, null, null);
+        assertPagesMatch(null, null, null, null, 150.0);
+    }
+
+    @Test
+    void updatesArrivingDuringLoadAreKept() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch updated = new CountDownLatch(1);
+        when(doctorRepository.findAll()).thenAnswer(invocation -> {
+            reading.countDown();
+            updated.await();
+            return all;
+        });
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread loader = new Thread(() -> {
+            try {
+                index.load();
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        loader.start();
+        reading.await();
+        // Committed after findAll() read its rows
+        index.put(doctor(5L, "Dr Renamed", "Cardiology", "Rabat", 300.0, 5.0));
+        updated.countDown();
+        loader.join();
+
+        assertThat(failure.get()).isNull();
+        assertThat(index.search("renamed", null, null, null, null, null, null, 10))
+                .extracting(Doctor::getId).containsExactly(5L);
+    }
+
+    private void assertPagesMatch(String name, String specialty, String location, Double minPrice, Double maxPrice) {
+        List<Long> expected = all.stream()
+                .filter(d -> name == null || d.getName().toLowerCase().contains(name))
+                .filter(d -> specialty == null || specialty.equals(d.getSpecialty()))
+                .filter(d -> location == null || location.equals(d.getLocation()))
+                .filter(d -> minPrice == null || d.getConsultationFee() >= minPrice)
+                .filter(d -> maxPrice == null || d.getConsultationFee() <= maxPrice)
+                .sorted(RESULT_ORDER)
+                .map(Doctor::getId)
+                .toList();
+
+        List<Long> paged = new ArrayList<>();
+        Double afterRating = null;
+        Long afterId = null;
+        while (true) {
+            List<Doctor> page = index.search(name, specialty, location, minPrice, maxPrice, afterRating, afterId, 25);
+            page.forEach(d -> paged.add(d.getId()));
+            if (page.size() < 25) {
+                break;
+            }
+            Doctor last = page.get(page.size() - 1);
+            afterRating = last.getAverageRating();
+            afterId = last.getId();
+        }
+        assertThat(paged).isEqualTo(expected);
+    }
+
+    private static Doctor doctor(Long id, String name, String specialty, String location, Double fee, Double rating) {
+        Doctor doctor = new Doctor();
+        doctor.setId(id);
+        doctor.setName(name);
+        doctor.setSpecialty(specialty);
+        doctor.setLocation(location);
+        doctor.setConsultationFee(fee);
+        doctor.setAverageRating(rating);
+        return doctor;
+    }
+}
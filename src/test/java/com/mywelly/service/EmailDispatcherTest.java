@@ -0,0 +1,155 @@
+package com.mywelly.service;
+
+import com.mywelly.model.OutboxEmail;
+import com.mywelly.model.OutboxEmail.OutboxStatus;
+import com.mywelly.repository.OutboxEmailRepository;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Dispatchers standing in for several nodes drain one outbox; the mail server is an in-memory stand-in
+@SpringBootTest
+@ActiveProfiles("test")
+class EmailDispatcherTest {
+
+    @Autowired
+    private OutboxEmailRepository outboxEmailRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void emptyOutbox() {
+        outboxEmailRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentDispatchersSendEachEmailOnce() throws Exception {
+        int emails = 120;
+        for (int i = 0; i < emails; i++) {
+            queue("patient" + i + "@test.com");
+        }
+        SmtpStandIn smtp = new SmtpStandIn(recipient -> false);
+
+        ExecutorService nodes = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for (int node = 0; node < 4; node++) {
+                EmailDispatcher dispatcher = dispatcher(smtp, Duration.ofMinutes(5));
+                runs.add(nodes.submit(dispatcher::dispatch));
+            }
+            for (Future<?> run : runs) {
+                run.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            nodes.shutdownNow();
+        }
+
+        assertThat(smtp.delivered).hasSize(emails).doesNotHaveDuplicates();
+        assertThat(outboxEmailRepository.countByStatus(OutboxStatus.SENT)).isEqualTo(emails);
+    }
+
+    @Test
+    void failedEmailIsReleasedForRetry() {
+        queue("ok@test.com");
+        queue("bounce@test.com");
+        SmtpStandIn smtp = new SmtpStandIn(recipient -> recipient.startsWith("bounce"));
+
+        dispatcher(smtp, Duration.ofMinutes(5)).dispatch();
+
+        assertThat(smtp.delivered).containsExactly("ok@test.com");
+        OutboxEmail bounced = outboxEmailRepository.findAll().stream()
+                .filter(email -> email.getRecipient().startsWith("bounce")).findFirst().orElseThrow();
+        assertThat(bounced.getStatus()).isEqualTo(OutboxStatus.PENDING);
+        assertThat(bounced.getAttempts()).isEqualTo(1);
+        assertThat(bounced.getClaimedBy()).isNull();
+        assertThat(bounced.getNextAttemptAt()).isAfter(LocalDateTime.now());
+    }
+
+    @Test
+    void expiredClaimIsTakenOver() {
+        OutboxEmail email = queue("stuck@test.com");
+        // Claimed by a dispatcher that died; the claim ran out a minute ago
+        email.setStatus(OutboxStatus.SENDING);
+        email.setClaimedBy(UUID.randomUUID().toString());
+        email.setNextAttemptAt(LocalDateTime.now().minusMinutes(1));
+        outboxEmailRepository.save(email);
+        SmtpStandIn smtp = new SmtpStandIn(recipient -> false);
+
+        dispatcher(smtp, Duration.ofMinutes(5)).dispatch();
+
+        assertThat(smtp.delivered).containsExactly("stuck@test.com");
+        assertThat(outboxEmailRepository.findById(email.getId()).orElseThrow().getStatus())
+                .isEqualTo(OutboxStatus.SENT);
+    }
+
+    private OutboxEmail queue(String recipient) {
+        OutboxEmail email = new OutboxEmail();
+        email.setRecipient(recipient);
+        email.setSubject("Appointment confirmed");
+        email.setBody("See you soon");
+        email.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        return outboxEmailRepository.save(email);
+    }
+
+    private EmailDispatcher dispatcher(JavaMailSender mailSender, Duration claimTimeout) {
+        return new EmailDispatcher(outboxEmailRepository, mailSender, transactionManager, "no-reply@mywelly.ma",
+                10, 100, 8, Duration.ofSeconds(30), Duration.ofHours(1), claimTimeout);
+    }
+
+    // Records what it would have delivered; sending takes a little while so concurrent batches overlap
+    private static class SmtpStandIn extends JavaMailSenderImpl {
+
+        private final Queue<String> delivered = new ConcurrentLinkedQueue<>();
+        private final Predicate<String> rejects;
+
+        SmtpStandIn(Predicate<String> rejects) {
+            this.rejects = rejects;
+        }
+
+        @Override
+        protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+            Map<Object, Exception> failed = new LinkedHashMap<>();
+            for (MimeMessage message : mimeMessages) {
+                String recipient = recipient(message);
+                if (rejects.test(recipient)) {
+                    failed.put(message, new MessagingException("550 Mailbox unavailable"));
+                } else {
+                    delivered.add(recipient);
+                }
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!failed.isEmpty()) {
+                throw new MailSendException(failed);
+            }
+        }
+
+        private static String recipient(MimeMessage message) {
+            try {
+                return message.getAllRecipients()[0].toString();
+            } catch (MessagingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
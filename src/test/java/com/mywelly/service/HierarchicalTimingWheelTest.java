@@ -0,0 +1,86 @@
+package com.mywelly.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HierarchicalTimingWheelTest {
+
+    // 64 slots on each of 5 levels
+    private static final long HORIZON = 1L << 30;
+
+    @Test
+    void firesEveryDeadlineOnItsOwnTickAcrossLevelBoundaries() {
+        // Starts off a slot boundary so cascades do not line up with the schedule time
+        long start = 1_000_005;
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(1, start);
+        long[] offsets = {1, 2, 63, 64, 65, 127, 128, 4_095, 4_096, 4_097, 5_000,
+                262_143, 262_144, 262_145, 300_001};
+        for (long offset : offsets) {
+            wheel.schedule(offset, start + offset);
+        }
+
+        Map<Long, Long> firedAt = new HashMap<>();
+        for (long now = start + 1; now <= start + 300_010; now++) {
+            for (Long offset : wheel.advanceTo(now)) {
+                firedAt.put(offset, now - start);
+            }
+        }
+
+        assertThat(firedAt).hasSize(offsets.length);
+        for (long offset : offsets) {
+            assertThat(firedAt.get(offset)).as("deadline +%d", offset).isEqualTo(offset);
+        }
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void roundsDeadlinesUpToTheNextTickAndFiresPastOnesOnTheNextAdvance() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1_000, 10_000);
+        wheel.schedule("late", 9_000);
+        wheel.schedule("partial", 12_500);
+
+        assertThat(wheel.advanceTo(10_999)).isEmpty();
+        assertThat(wheel.advanceTo(11_000)).containsExactly("late");
+        assertThat(wheel.advanceTo(12_999)).isEmpty();
+        assertThat(wheel.advanceTo(13_000)).containsExactly("partial");
+    }
+
+    @Test
+    void cancelledTimeoutsNeverFire() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1, 0);
+        // Three entries share a bucket, so the middle one is unlinked from both sides
+        HierarchicalTimingWheel<String>.Timeout first = wheel.schedule("first", 10);
+        HierarchicalTimingWheel<String>.Timeout middle = wheel.schedule("middle", 10);
+        wheel.schedule("last", 10);
+        // Still parked on a coarse level when cancelled
+        HierarchicalTimingWheel<String>.Timeout coarse = wheel.schedule("coarse", 5_000);
+
+        assertThat(middle.cancel()).isTrue();
+        assertThat(coarse.cancel()).isTrue();
+        assertThat(middle.cancel()).isFalse();
+        assertThat(wheel.size()).isEqualTo(2);
+
+        assertThat(wheel.advanceTo(10)).containsExactlyInAnyOrder("first", "last");
+        assertThat(wheel.advanceTo(10_000)).isEmpty();
+        assertThat(first.cancel()).isFalse();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void deadlinesBeyondTheTopLevelFireOnTime() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1, 0);
+        wheel.schedule("beyond", HORIZON + 100);
+        wheel.schedule("edge", HORIZON - 1);
+
+        assertThat(wheel.advanceTo(HORIZON - 2)).isEmpty();
+        assertThat(wheel.advanceTo(HORIZON - 1)).containsExactly("edge");
+        assertThat(wheel.advanceTo(HORIZON + 99)).isEmpty();
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advanceTo(HORIZON + 100)).containsExactly("beyond");
+        assertThat(wheel.size()).isZero();
+    }
+}
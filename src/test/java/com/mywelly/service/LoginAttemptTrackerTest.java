@@ -0,0 +1,60 @@
+package com.mywelly.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LoginAttemptTrackerTest {
+
+    private final UserService userService = mock(UserService.class);
+    private final LoginAttemptTracker tracker = new LoginAttemptTracker(userService, 20, Duration.ofMinutes(10));
+
+    @Test
+    void existingAccountLocksAtThreshold() {
+        when(userService.emailExists("patient@test.com")).thenReturn(true);
+
+        for (int i = 0; i < LoginAttemptTracker.ACCOUNT_LOCK_THRESHOLD; i++) {
+            assertThat(tracker.isBlocked("patient@test.com", "10.0.0.2")).isFalse();
+            fail("patient@test.com", "10.0.0.1");
+        }
+
+        assertThat(tracker.isBlocked("patient@test.com", "10.0.0.2")).isTrue();
+        assertThat(tracker.getTrackedAccountCount()).isEqualTo(1);
+    }
+
+    @Test
+    void unknownEmailsAreNotTracked() {
+        for (int i = 0; i < 1000; i++) {
+            fail("guess" + i + "@test.com", "10.0.0." + (i % 250));
+        }
+
+        assertThat(tracker.getTrackedAccountCount()).isZero();
+        assertThat(tracker.isBlocked("guess0@test.com", "10.0.1.1")).isFalse();
+    }
+
+    @Test
+    void addressIsBlockedWhateverTheEmails() {
+        for (int i = 0; i < 20; i++) {
+            fail("guess" + i + "@test.com", "10.0.0.1");
+        }
+
+        assertThat(tracker.isBlocked("patient@test.com", "10.0.0.1")).isTrue();
+        assertThat(tracker.isBlocked("patient@test.com", "10.0.0.2")).isFalse();
+    }
+
+    private void fail(String email, String address) {
+        UsernamePasswordAuthenticationToken authentication =
+                UsernamePasswordAuthenticationToken.unauthenticated(email, "wrong");
+        authentication.setDetails(new WebAuthenticationDetails(address, null));
+        tracker.onBadCredentials(new AuthenticationFailureBadCredentialsEvent(authentication,
+                new BadCredentialsException("Bad credentials")));
+    }
+}
@@ -0,0 +1,153 @@
+package com.mywelly.service;
+
+import com.mywelly.model.Appointment;
+import com.mywelly.model.Appointment.AppointmentStatus;
+import com.mywelly.model.Doctor;
+import com.mywelly.model.Patient;
+import com.mywelly.model.User;
+import com.mywelly.repository.AppointmentRepository;
+import com.mywelly.repository.DoctorRepository;
+import com.mywelly.repository.PatientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class MarkNoShowsTest {
+
+    // PatientService blocks a patient at this many no-shows
+    private static final int THRESHOLD = 3;
+
+    // Distinct past start times keep the rows clear of each other under the active-slot key
+    private static final AtomicInteger minutesAgo = new AtomicInteger(60 * 24 * 30);
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    private Doctor doctor;
+    private Doctor otherDoctor;
+
+    @BeforeEach
+    void setUp() {
+        List<Doctor> doctors = doctorRepository.findAll();
+        doctor = doctors.get(5);
+        otherDoctor = doctors.get(6);
+    }
+
+    @Test
+    void markingTheSameAppointmentsTwiceChargesThePatientOnce() {
+        Patient patient = registerPatient(0);
+        Long first = pastAppointment(patient, doctor);
+        Long second = pastAppointment(patient, doctor);
+
+        assertThat(appointmentService.markNoShows(doctor.getId(), List.of(first, first, second))).isEqualTo(2);
+        assertThat(appointmentService.markNoShows(doctor.getId(), List.of(first, second))).isZero();
+
+        assertThat(noShowCount(patient)).isEqualTo(2);
+        assertThat(isBlocked(patient)).isFalse();
+        assertThat(status(first)).isEqualTo(AppointmentStatus.NO_SHOW);
+        assertThat(status(second)).isEqualTo(AppointmentStatus.NO_SHOW);
+    }
+
+    @Test
+    void patientsReachingTheThresholdAreBlocked() {
+        Patient oneShort = registerPatient(THRESHOLD - 1);
+        Patient twoShort = registerPatient(THRESHOLD - 2);
+        Patient fresh = registerPatient(0);
+        List<Long> ids = List.of(
+                pastAppointment(oneShort, doctor),
+                pastAppointment(twoShort, doctor),
+                pastAppointment(twoShort, doctor),
+                pastAppointment(fresh, doctor));
+
+        assertThat(appointmentService.markNoShows(doctor.getId(), ids)).isEqualTo(4);
+
+        assertThat(noShowCount(oneShort)).isEqualTo(THRESHOLD);
+        assertThat(isBlocked(oneShort)).isTrue();
+        // Both of its no-shows in one call count towards the threshold
+        assertThat(noShowCount(twoShort)).isEqualTo(THRESHOLD);
+        assertThat(isBlocked(twoShort)).isTrue();
+        assertThat(noShowCount(fresh)).isEqualTo(1);
+        assertThat(isBlocked(fresh)).isFalse();
+    }
+
+    @Test
+    void anotherDoctorsAppointmentsAreIgnored() {
+        Patient patient = registerPatient(THRESHOLD - 1);
+        Long others = pastAppointment(patient, otherDoctor);
+        Long own = pastAppointment(registerPatient(0), doctor);
+
+        assertThat(appointmentService.markNoShows(doctor.getId(), List.of(others))).isZero();
+        assertThat(appointmentService.markNoShows(doctor.getId(), List.of(others, own))).isEqualTo(1);
+
+        assertThat(status(others)).isEqualTo(AppointmentStatus.SCHEDULED);
+        assertThat(status(own)).isEqualTo(AppointmentStatus.NO_SHOW);
+        assertThat(noShowCount(patient)).isEqualTo(THRESHOLD - 1);
+        assertThat(isBlocked(patient)).isFalse();
+    }
+
+    private Patient registerPatient(int noShowCount) {
+        String email = "no-show-" + UUID.randomUUID() + "@test.com";
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("password123");
+        Patient patient = new Patient();
+        patient.setFullName("No-show Patient");
+        patient.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        patient.setGender("Male");
+        patient.setIdNumber(email);
+        patient.setPhoneNumber("+212600000000");
+        patient.setUsername(email);
+        patient.setNoShowCount(noShowCount);
+        userService.registerPatient(user, patient);
+        return patient;
+    }
+
+    private Long pastAppointment(Patient patient, Doctor doctor) {
+        LocalDateTime startsAt = LocalDateTime.now().withSecond(0).withNano(0)
+                .minusMinutes(minutesAgo.addAndGet(-SlotAvailabilityEngine.SLOT_MINUTES));
+        Appointment appointment = new Appointment();
+        appointment.setPatient(patient);
+        appointment.setDoctor(doctor);
+        appointment.setAppointmentDate(startsAt.toLocalDate());
+        appointment.setAppointmentTime(startsAt.toLocalTime().toString());
+        appointment.setStartsAt(startsAt);
+        appointment.setDurationMinutes(SlotAvailabilityEngine.SLOT_MINUTES);
+        return appointmentRepository.save(appointment).getId();
+    }
+
+    private int noShowCount(Patient patient) {
+        return patientRepository.findById(patient.getId()).orElseThrow().getNoShowCount();
+    }
+
+    private boolean isBlocked(Patient patient) {
+        return patientRepository.findById(patient.getId()).orElseThrow().getIsBlocked();
+    }
+
+    private AppointmentStatus status(Long appointmentId) {
+        return appointmentRepository.findById(appointmentId).orElseThrow().getStatus();
+    }
+}
@@ -0,0 +1,86 @@
+package com.mywelly.service;
+
+import com.mywelly.model.Doctor;
+import com.mywelly.model.Review;
+import com.mywelly.repository.DoctorRepository;
+import com.mywelly.repository.PatientRepository;
+import com.mywelly.repository.ReviewRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RatingReconciliationTest {
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private DoctorSearchIndex doctorSearchIndex;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void rolledBackReconciliationLeavesTheIndexAsCommitted() {
+        Doctor doctor = doctorRepository.findAll().get(2);
+        Double committed = indexedRating(doctor);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            // A review written without going through updateRating, so only reconciliation picks it up
+            reviewRepository.save(review(doctor, 1));
+            reviewService.reconcileRatings();
+            status.setRollbackOnly();
+        });
+
+        assertThat(indexedRating(doctor)).isEqualTo(committed);
+        assertThat(indexedRating(doctor)).isEqualTo(storedRating(doctor));
+    }
+
+    @Test
+    void committedReconciliationIsIndexed() {
+        Doctor doctor = doctorRepository.findAll().get(3);
+        Double before = storedRating(doctor);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            reviewRepository.save(review(doctor, 1));
+            reviewService.reconcileRatings();
+        });
+
+        assertThat(storedRating(doctor)).isLessThan(before);
+        assertThat(indexedRating(doctor)).isEqualTo(storedRating(doctor));
+    }
+
+    private Review review(Doctor doctor, int rating) {
+        Review review = new Review();
+        review.setDoctor(doctor);
+        review.setPatient(patientRepository.findAll().get(0));
+        review.setRating(rating);
+        return review;
+    }
+
+    private Double storedRating(Doctor doctor) {
+        return doctorRepository.findById(doctor.getId()).orElseThrow().getAverageRating();
+    }
+
+    private Double indexedRating(Doctor doctor) {
+        return doctorSearchIndex.search(null, null, null, null, null, null, null, 1000).stream()
+                .filter(indexed -> indexed.getId().equals(doctor.getId()))
+                .findFirst().orElseThrow().getAverageRating();
+    }
+}
@@ -0,0 +1,122 @@
+package com.mywelly.service;
+
+import com.mywelly.model.Appointment;
+import com.mywelly.model.Doctor;
+import com.mywelly.repository.AppointmentRepository;
+import com.mywelly.repository.DoctorRepository;
+import com.mywelly.repository.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ReminderSchedulerTest {
+
+    private static final List<Duration> OFFSETS = List.of(Duration.ofHours(24), Duration.ofHours(2));
+    private static final Duration TICK = Duration.ofMillis(20);
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final EmailOutboxService emailOutboxService = mock(EmailOutboxService.class);
+    private final List<ReminderScheduler> started = new ArrayList<>();
+
+    @AfterEach
+    void stopSchedulers() {
+        started.forEach(ReminderScheduler::stop);
+    }
+
+    @Test
+    void reloadsTheLastSentOffsetAndOnlyCatchesUpOnUnsentReminders() throws Exception {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        // 2h reminder already sent; nothing is left for it
+        Appointment allSent = appointment(1, now.plusHours(1).plusSeconds(1), 120);
+        // 24h reminder already sent; the 2h one is an hour away
+        Appointment daySent = appointment(2, now.plusHours(3).plusSeconds(1), 1440);
+        // Nothing sent and the 2h reminder is overdue, so it is caught up
+        Appointment noneSent = appointment(3, now.plusHours(1).plusSeconds(1), null);
+
+        start();
+
+        verify(emailOutboxService, timeout(5_000)).appointmentReminder(argThat(sent -> isFor(sent, noneSent)));
+        Thread.sleep(TICK.toMillis() * 10);
+        verify(emailOutboxService, never()).appointmentReminder(argThat(sent -> isFor(sent, allSent)));
+        verify(emailOutboxService, never()).appointmentReminder(argThat(sent -> isFor(sent, daySent)));
+        assertThat(lastReminderMinutes(noneSent)).isEqualTo(120);
+        assertThat(lastReminderMinutes(daySent)).isEqualTo(1440);
+    }
+
+    @Test
+    void aReminderLoadedByTwoSchedulersIsSentOnce() throws Exception {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        Appointment appointment = appointment(4, now.plusMinutes(90).plusSeconds(1), null);
+
+        // Two nodes (or an old and a restarted one) both load the overdue reminder
+        start();
+        start();
+        verify(emailOutboxService, timeout(5_000)).appointmentReminder(argThat(sent -> isFor(sent, appointment)));
+        Thread.sleep(TICK.toMillis() * 10);
+
+        // A later restart reloads the persisted offset and has nothing left to send
+        start();
+        Thread.sleep(TICK.toMillis() * 10);
+
+        verify(emailOutboxService, times(1)).appointmentReminder(argThat(sent -> isFor(sent, appointment)));
+        assertThat(lastReminderMinutes(appointment)).isEqualTo(120);
+    }
+
+    private void start() {
+        ReminderScheduler scheduler = new ReminderScheduler(appointmentRepository, emailOutboxService,
+                transactionManager, OFFSETS, TICK);
+        started.add(scheduler);
+        scheduler.start();
+    }
+
+    // Off-grid start times keep these rows clear of slots booked by other tests
+    private Appointment appointment(int doctorIndex, LocalDateTime startsAt, Integer lastReminderMinutes) {
+        Doctor doctor = doctorRepository.findAll().get(doctorIndex);
+        Appointment appointment = new Appointment();
+        appointment.setPatient(patientRepository.findAll().get(0));
+        appointment.setDoctor(doctor);
+        appointment.setAppointmentDate(startsAt.toLocalDate());
+        appointment.setAppointmentTime(startsAt.toLocalTime().toString());
+        appointment.setStartsAt(startsAt);
+        appointment.setDurationMinutes(SlotAvailabilityEngine.SLOT_MINUTES);
+        appointment.setLastReminderMinutes(lastReminderMinutes);
+        return appointmentRepository.save(appointment);
+    }
+
+    private Integer lastReminderMinutes(Appointment appointment) {
+        return appointmentRepository.findById(appointment.getId()).orElseThrow().getLastReminderMinutes();
+    }
+
+    private static boolean isFor(Appointment sent, Appointment appointment) {
+        return sent != null && appointment.getId().equals(sent.getId());
+    }
+}
@@ -0,0 +1,101 @@
+package com.mywelly.session;
+
+import com.mywelly.MyWellyApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two nodes on one database: a session started on one is recognised by the other
+class SharedSessionTest {
+
+    private static final Pattern SESSION_COOKIE = Pattern.compile("SESSION=([^;]+)");
+    private static final Pattern CSRF_TOKEN = Pattern.compile("name=\"_csrf\" value=\"([^\"]+)\"");
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @Test
+    void loginOnOneNodeIsValidOnTheOther() throws Exception {
+        String url = "jdbc:h2:mem:shared-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        try (ConfigurableApplicationContext nodeA = start(url);
+             ConfigurableApplicationContext nodeB = start(url)) {
+            String a = baseUrl(nodeA);
+            String b = baseUrl(nodeB);
+
+            HttpResponse<String> loginPage = http.send(HttpRequest.newBuilder(URI.create(a + "/login")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            String session = cookie(loginPage);
+            String csrf = match(CSRF_TOKEN, loginPage.body());
+
+            HttpResponse<String> login = http.send(HttpRequest.newBuilder(URI.create(a + "/login"))
+                            .header("Cookie", "SESSION=" + session)
+                            .header("Content-Type", "application/x-www-form-urlencoded")
+                            .POST(HttpRequest.BodyPublishers.ofString("username=" + encode("patient@test.com")
+                                    + "&password=password123&_csrf=" + encode(csrf)))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertThat(login.statusCode()).isEqualTo(302);
+            assertThat(login.headers().firstValue("Location")).hasValueSatisfying(
+                    location -> assertThat(location).endsWith("/dashboard"));
+            // The session id changes on login
+            String authenticated = cookie(login);
+
+            HttpResponse<String> dashboard = http.send(HttpRequest.newBuilder(URI.create(b + "/patient/dashboard"))
+                            .header("Cookie", "SESSION=" + authenticated)
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertThat(dashboard.statusCode()).isEqualTo(200);
+            assertThat(dashboard.body()).contains("Ahmed Benali");
+
+            HttpResponse<String> anonymous = http.send(HttpRequest.newBuilder(URI.create(b + "/patient/dashboard"))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertThat(anonymous.statusCode()).isEqualTo(302);
+        }
+    }
+
+    // Without the second-level cache: its cache manager is shared JVM-wide, and closing a node would close the
+    // caches of every other context, including the ones other tests keep cached
+    private static ConfigurableApplicationContext start(String url) {
+        return new SpringApplicationBuilder(MyWellyApplication.class)
+                .profiles("test")
+                .run("--server.port=0", "--spring.datasource.url=" + url,
+                        "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                        "--spring.jpa.properties.hibernate.cache.use_query_cache=false");
+    }
+
+    private static String baseUrl(ConfigurableApplicationContext context) {
+        return "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    private static String cookie(HttpResponse<?> response) {
+        return response.headers().allValues("Set-Cookie").stream()
+                .map(SESSION_COOKIE::matcher)
+                .filter(Matcher::find)
+                .map(matcher -> matcher.group(1))
+                .reduce((first, last) -> last)
+                .orElseThrow(() -> new AssertionError("No session cookie in " + response.headers()));
+    }
+
+    private static String match(Pattern pattern, String body) {
+        Matcher matcher = pattern.matcher(body);
+        assertThat(matcher.find()).as("%s in the page", pattern).isTrue();
+        return matcher.group(1);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}